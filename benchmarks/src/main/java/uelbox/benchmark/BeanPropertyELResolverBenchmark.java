@@ -0,0 +1,112 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox.benchmark;
+
+import javax.el.BeanELResolver;
+import javax.el.ELContext;
+import javax.el.ELResolver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uelbox.BeanPropertyELResolver;
+
+/**
+ * Benchmark bean property access by {@link BeanPropertyELResolver} versus the implementation's
+ * {@link BeanELResolver}, on a long-lived resolver as well as on one created per operation, as happens with a
+ * resolver chain built per {@link ELContext}.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BeanPropertyELResolverBenchmark {
+    /**
+     * Bean property resolver implementations.
+     */
+    public enum Resolver {
+        BEAN_EL_RESOLVER {
+
+            @Override
+            ELResolver create() {
+                return new BeanELResolver(false);
+            }
+        },
+        BEAN_PROPERTY_EL_RESOLVER {
+
+            @Override
+            ELResolver create() {
+                return new BeanPropertyELResolver(false);
+            }
+        };
+
+        abstract ELResolver create();
+    }
+
+    /**
+     * Benchmarked bean.
+     */
+    public static class Bean {
+        private String name = "name";
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    @Param
+    public ELImplementation implementation;
+
+    @Param
+    public Resolver resolver;
+
+    private ELContext context;
+    private ELResolver elResolver;
+    private Bean bean;
+
+    @Setup
+    public void setup() {
+        context = implementation.newELContext();
+        elResolver = resolver.create();
+        bean = new Bean();
+    }
+
+    @Benchmark
+    public Object getValue() {
+        return elResolver.getValue(context, bean, "name");
+    }
+
+    @Benchmark
+    public Object setValue() {
+        elResolver.setValue(context, bean, "name", "name");
+        return bean;
+    }
+
+    @Benchmark
+    public Object getValueWithNewResolver() {
+        return resolver.create().getValue(context, bean, "name");
+    }
+}
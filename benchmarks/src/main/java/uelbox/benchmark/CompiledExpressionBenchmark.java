@@ -0,0 +1,89 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox.benchmark;
+
+import javax.el.ELContext;
+import javax.el.ValueExpression;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uelbox.CompiledExpression;
+import uelbox.UEL;
+
+/**
+ * Benchmark evaluation of a property path by {@link CompiledExpression} versus the original {@link ValueExpression}.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CompiledExpressionBenchmark {
+    /**
+     * Benchmarked bean.
+     */
+    public static class Bean {
+        private final Bean child;
+        private final String name;
+
+        public Bean(Bean child, String name) {
+            this.child = child;
+            this.name = name;
+        }
+
+        public Bean getChild() {
+            return child;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    @Param
+    public ELImplementation implementation;
+
+    private ELContext context;
+    private ValueExpression expression;
+    private CompiledExpression compiled;
+
+    @Setup
+    public void setup() {
+        context = implementation.newELContext();
+        context.getVariableMapper().setVariable("bean",
+            UEL.getExpressionFactory(context).createValueExpression(new Bean(new Bean(null, "child"), "bean"),
+                Bean.class));
+        expression =
+            UEL.getExpressionFactory(context).createValueExpression(context, "#{bean.child.name}", String.class);
+        compiled = CompiledExpression.compile(context, expression);
+    }
+
+    @Benchmark
+    public Object valueExpression() {
+        return expression.getValue(context);
+    }
+
+    @Benchmark
+    public Object compiledExpression() {
+        return compiled.getValue(context);
+    }
+}
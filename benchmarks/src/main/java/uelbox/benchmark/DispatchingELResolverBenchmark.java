@@ -0,0 +1,115 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox.benchmark;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.el.ArrayELResolver;
+import javax.el.BeanELResolver;
+import javax.el.CompositeELResolver;
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.ListELResolver;
+import javax.el.MapELResolver;
+import javax.el.ResourceBundleELResolver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uelbox.DispatchingELResolver;
+
+/**
+ * Benchmark a single property step against the standard resolver chain, composed by a {@link CompositeELResolver}
+ * versus a {@link DispatchingELResolver}.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DispatchingELResolverBenchmark {
+    /**
+     * Kinds of base object.
+     */
+    public enum Target {
+        BEAN, MAP, LIST;
+    }
+
+    /**
+     * Benchmarked bean.
+     */
+    public static class Bean {
+        public String getName() {
+            return "name";
+        }
+    }
+
+    @Param
+    public ELImplementation implementation;
+
+    @Param
+    public Target target;
+
+    @Param({ "false", "true" })
+    public boolean dispatching;
+
+    private ELContext context;
+    private ELResolver resolver;
+    private Object base;
+    private Object property;
+
+    @Setup
+    public void setup() {
+        context = implementation.newELContext();
+        final ELResolver[] resolvers =
+            { new ArrayELResolver(false), new ListELResolver(false), new MapELResolver(false),
+                new ResourceBundleELResolver(), new BeanELResolver(false) };
+        if (dispatching) {
+            resolver = new DispatchingELResolver(resolvers);
+        } else {
+            final CompositeELResolver composite = new CompositeELResolver();
+            for (ELResolver each : resolvers) {
+                composite.add(each);
+            }
+            resolver = composite;
+        }
+        switch (target) {
+        case BEAN:
+            base = new Bean();
+            property = "name";
+            break;
+        case MAP:
+            base = Collections.singletonMap("name", "name");
+            property = "name";
+            break;
+        default:
+            base = Arrays.asList("name");
+            property = Integer.valueOf(0);
+            break;
+        }
+    }
+
+    @Benchmark
+    public Object getValue() {
+        return resolver.getValue(context, base, property);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox.benchmark;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.ValueExpression;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uelbox.ELContextWrapper;
+import uelbox.UEL;
+
+/**
+ * Benchmark context object and variable lookups through chains of {@link ELContextWrapper}s of varying depth, the
+ * values sought being held by the innermost (non-wrapper) context.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ELContextWrapperBenchmark {
+    /**
+     * Context object key.
+     */
+    public static class Key {
+    }
+
+    /**
+     * {@link ELContextWrapper} that does not wrap the {@link ELResolver}.
+     */
+    public static class PassThroughELContextWrapper extends ELContextWrapper {
+
+        public PassThroughELContextWrapper(ELContext wrapped) {
+            super(wrapped);
+        }
+
+        @Override
+        protected ELResolver wrap(ELResolver elResolver) {
+            return elResolver;
+        }
+    }
+
+    @Param
+    public ELImplementation implementation;
+
+    @Param({ "1", "2", "5", "10" })
+    public int depth;
+
+    private ELContext context;
+
+    @Setup
+    public void setup() {
+        final ELContext base = implementation.newELContext();
+        base.putContext(Key.class, new Key());
+        base.getVariableMapper().setVariable("foo",
+            UEL.getExpressionFactory(base).createValueExpression("foo", String.class));
+
+        ELContext top = base;
+        for (int i = 0; i < depth; i++) {
+            top = new PassThroughELContextWrapper(top);
+        }
+        context = top;
+    }
+
+    @Benchmark
+    public Object getContext() {
+        return context.getContext(Key.class);
+    }
+
+    @Benchmark
+    public Object getAbsentContext() {
+        return context.getContext(ELContextWrapperBenchmark.class);
+    }
+
+    @Benchmark
+    public ValueExpression resolveVariable() {
+        return context.getVariableMapper().resolveVariable("foo");
+    }
+}
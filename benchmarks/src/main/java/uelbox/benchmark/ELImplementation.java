@@ -0,0 +1,80 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox.benchmark;
+
+import javax.el.ELContext;
+import javax.el.ExpressionFactory;
+
+import uelbox.SimpleELContext;
+
+/**
+ * Unified EL implementations against which benchmarks are run.
+ */
+public enum ELImplementation {
+    /**
+     * Apache Tomcat (Jasper) EL.
+     */
+    TOMCAT("org.apache.el.ExpressionFactoryImpl") {
+
+        @Override
+        public ExpressionFactory newExpressionFactory() {
+            return new org.apache.el.ExpressionFactoryImpl();
+        }
+    },
+
+    /**
+     * JUEL.
+     */
+    JUEL("de.odysseus.el.ExpressionFactoryImpl") {
+
+        @Override
+        public ExpressionFactory newExpressionFactory() {
+            return new de.odysseus.el.ExpressionFactoryImpl();
+        }
+    };
+
+    private final String expressionFactoryClassName;
+
+    private ELImplementation(String expressionFactoryClassName) {
+        this.expressionFactoryClassName = expressionFactoryClassName;
+    }
+
+    /**
+     * Select this implementation for {@link ExpressionFactory#newInstance()} by way of the
+     * {@code javax.el.ExpressionFactory} system property.
+     */
+    public void select() {
+        System.setProperty(ExpressionFactory.class.getName(), expressionFactoryClassName);
+    }
+
+    /**
+     * Create a new {@link ExpressionFactory} of this implementation.
+     * 
+     * @return ExpressionFactory
+     */
+    public abstract ExpressionFactory newExpressionFactory();
+
+    /**
+     * Create a {@link SimpleELContext} whose {@link ExpressionFactory} context object is of this implementation.
+     * 
+     * @return ELContext
+     */
+    public ELContext newELContext() {
+        final ELContext result = new SimpleELContext();
+        result.putContext(ExpressionFactory.class, newExpressionFactory());
+        return result;
+    }
+}
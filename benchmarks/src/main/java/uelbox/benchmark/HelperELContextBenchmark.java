@@ -0,0 +1,167 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.ValueExpression;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uelbox.HelperELContext;
+import uelbox.HelperELResolver;
+import uelbox.UEL;
+
+/**
+ * Benchmark {@link HelperELContext#evaluate(ValueExpression)} with a helper that records the properties of the
+ * evaluated expression.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class HelperELContextBenchmark {
+    public static class Foo {
+        private final Map<String, Baz> bar = new HashMap<String, Baz>();
+
+        public Map<String, Baz> getBar() {
+            return bar;
+        }
+    }
+
+    public static class Baz {
+        private Object value;
+
+        public Object getValue() {
+            return value;
+        }
+
+        public void setValue(Object value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * {@link HelperELContext} returning the properties traversed.
+     */
+    public static class PropertiesHelperELContext extends HelperELContext<List<Object>> {
+
+        public PropertiesHelperELContext(ELContext wrapped) {
+            super(wrapped);
+        }
+
+        @Override
+        protected HelperELResolver<List<Object>> wrap(ELResolver elResolver) {
+            return new HelperELResolver.WithWorkingStorage.AsResult<List<Object>>(elResolver) {
+
+                @Override
+                protected List<Object> createWorkingStorage(ELContext context, Object base) {
+                    return new ArrayList<Object>();
+                }
+
+                @Override
+                protected void afterGetValue(ELContext context, Object base, Object property, Object value,
+                    List<Object> workingStorage) {
+                    workingStorage.add(property);
+                }
+
+                @Override
+                protected List<Object> afterSetValue(ELContext context, Object base, Object property,
+                    List<Object> workingStorage) {
+                    workingStorage.add(property);
+                    return workingStorage;
+                }
+            };
+        }
+    }
+
+    private static final int BATCH_SIZE = 50;
+
+    @Param
+    public ELImplementation implementation;
+
+    private ELContext context;
+    private ValueExpression valueExpression;
+    private PropertiesHelperELContext helper;
+    private List<ValueExpression> batch;
+
+    @Setup
+    public void setup() {
+        context = implementation.newELContext();
+        final Foo foo = new Foo();
+        foo.getBar().put("baz", new Baz());
+        context.getVariableMapper().setVariable("foo",
+            UEL.getExpressionFactory(context).createValueExpression(foo, Foo.class));
+        valueExpression =
+            UEL.getExpressionFactory(context).createValueExpression(context, "#{foo.bar['baz'].value}", Object.class);
+        helper = new PropertiesHelperELContext(context);
+
+        final String[] expressions = { "#{foo.bar['baz'].value}", "#{foo.bar['baz']}", "#{foo.bar}" };
+        batch = new ArrayList<ValueExpression>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(UEL.getExpressionFactory(context).createValueExpression(context,
+                expressions[i % expressions.length], Object.class));
+        }
+    }
+
+    @Benchmark
+    public List<Object> evaluate() {
+        return helper.evaluate(valueExpression);
+    }
+
+    @Benchmark
+    public List<Object> createAndEvaluate() {
+        return new PropertiesHelperELContext(context).evaluate(valueExpression);
+    }
+
+    @Benchmark
+    public List<Object> evaluateWithSharedResolver() {
+        return helper.getELResolver().evaluate(context, valueExpression);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void evaluateBatchInLoop(Blackhole blackhole) {
+        for (ValueExpression each : batch) {
+            blackhole.consume(helper.evaluate(each));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<List<Object>> evaluateBatch() {
+        return helper.evaluateAll(batch);
+    }
+
+    @Benchmark
+    public Object getValue() {
+        return valueExpression.getValue(context);
+    }
+}
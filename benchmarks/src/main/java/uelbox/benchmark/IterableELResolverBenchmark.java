@@ -0,0 +1,114 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox.benchmark;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.el.ELContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uelbox.IterableELResolver;
+
+/**
+ * Benchmark {@link IterableELResolver} index access, visiting every index of a base object in ascending order as a
+ * template loop would.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class IterableELResolverBenchmark {
+    /**
+     * Kinds of {@link Iterable} base object.
+     */
+    public enum Shape {
+        ARRAY_LIST, LINKED_LIST, LINKED_HASH_SET, ITERABLE;
+
+        Iterable<Integer> create(final List<Integer> elements) {
+            switch (this) {
+            case ARRAY_LIST:
+                return new ArrayList<Integer>(elements);
+            case LINKED_LIST:
+                return new LinkedList<Integer>(elements);
+            case LINKED_HASH_SET:
+                return new LinkedHashSet<Integer>(elements);
+            default:
+                return new Iterable<Integer>() {
+
+                    @Override
+                    public Iterator<Integer> iterator() {
+                        return elements.iterator();
+                    }
+                };
+            }
+        }
+    }
+
+    @Param
+    public ELImplementation implementation;
+
+    @Param
+    public Shape shape;
+
+    @Param({ "10", "100", "1000" })
+    public int size;
+
+    private ELContext context;
+    private IterableELResolver resolver;
+    private Iterable<Integer> base;
+    private Integer[] indices;
+
+    @Setup
+    public void setup() {
+        context = implementation.newELContext();
+        resolver = new IterableELResolver();
+        indices = new Integer[size];
+        final List<Integer> elements = new ArrayList<Integer>(size);
+        for (int i = 0; i < size; i++) {
+            indices[i] = Integer.valueOf(i);
+            elements.add(indices[i]);
+        }
+        base = shape.create(elements);
+    }
+
+    @Benchmark
+    public void ascending(Blackhole blackhole) {
+        for (Integer index : indices) {
+            blackhole.consume(resolver.getValue(context, base, index));
+        }
+    }
+
+    @Benchmark
+    public void getTypeThenGetValue(Blackhole blackhole) {
+        for (Integer index : indices) {
+            blackhole.consume(resolver.getType(context, base, index));
+            blackhole.consume(resolver.getValue(context, base, index));
+        }
+    }
+}
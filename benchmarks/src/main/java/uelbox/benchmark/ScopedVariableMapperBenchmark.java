@@ -0,0 +1,90 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox.benchmark;
+
+import javax.el.ELContext;
+import javax.el.ValueExpression;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uelbox.ELContextWrapper;
+import uelbox.ScopedVariableMapper;
+import uelbox.SimpleELContext;
+import uelbox.UEL;
+import uelbox.benchmark.ELContextWrapperBenchmark.PassThroughELContextWrapper;
+
+/**
+ * Benchmark binding a loop variable per item of a 100k item loop, by way of an {@link ELContextWrapper} per item
+ * versus a single {@link ScopedVariableMapper} frame; results are reported per item.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ScopedVariableMapperBenchmark {
+    private static final int ITEMS = 100000;
+
+    @Param
+    public ELImplementation implementation;
+
+    private SimpleELContext context;
+    private ValueExpression[] items;
+
+    @Setup
+    public void setup() {
+        implementation.select();
+        context = new SimpleELContext();
+        context.getVariableMapper().setVariable("outer",
+            UEL.getExpressionFactory(context).createValueExpression("outer", String.class));
+        items = new ValueExpression[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            items[i] = UEL.getExpressionFactory(context).createValueExpression(Integer.valueOf(i), Integer.class);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void wrapperPerItem(Blackhole blackhole) {
+        for (ValueExpression item : items) {
+            final ELContext scope = new PassThroughELContextWrapper(context);
+            scope.getVariableMapper().setVariable("item", item);
+            blackhole.consume(scope.getVariableMapper().resolveVariable("item"));
+            blackhole.consume(scope.getVariableMapper().resolveVariable("outer"));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void frame(Blackhole blackhole) {
+        final ScopedVariableMapper mapper = context.getScopedVariableMapper();
+        mapper.pushFrame();
+        for (ValueExpression item : items) {
+            mapper.setVariable("item", item);
+            blackhole.consume(mapper.resolveVariable("item"));
+            blackhole.consume(mapper.resolveVariable("outer"));
+        }
+        mapper.popFrame();
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox.benchmark;
+
+import javax.el.ELContext;
+import javax.el.ExpressionFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uelbox.SimpleELContext;
+import uelbox.UEL;
+
+/**
+ * Benchmark {@link SimpleELContext} construction, bare and followed by the {@link ExpressionFactory} lookup that
+ * virtually all uses of a fresh context entail.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SimpleELContextBenchmark {
+    @Param
+    public ELImplementation implementation;
+
+    @Setup
+    public void setup() {
+        implementation.select();
+    }
+
+    @Benchmark
+    public ELContext construct() {
+        return new SimpleELContext();
+    }
+
+    @Benchmark
+    public ExpressionFactory constructAndGetExpressionFactory() {
+        return UEL.getExpressionFactory(new SimpleELContext());
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox.benchmark;
+
+import javax.el.ELContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uelbox.SimpleELContext;
+import uelbox.UEL;
+
+/**
+ * Benchmark {@link UEL} string handling and coercion.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UELBenchmark {
+    @Param
+    public ELImplementation implementation;
+
+    private ELContext context;
+    private String[] parts;
+    private String delimited;
+    private String index;
+    private Long longValue;
+
+    @Setup
+    public void setup() {
+        context = implementation.newELContext();
+        parts = new String[] { "${ foo }", "[bar].", "#{baz}" };
+        delimited = " #{ foo[bar].baz } ";
+        index = "42";
+        longValue = Long.valueOf(42L);
+    }
+
+    @Benchmark
+    public String join() {
+        return UEL.join(parts);
+    }
+
+    @Benchmark
+    public String strip() {
+        return UEL.strip(delimited);
+    }
+
+    @Benchmark
+    public String embed() {
+        return UEL.embed(delimited);
+    }
+
+    @Benchmark
+    public Integer coerceStringToInteger() {
+        return UEL.coerceToType(context, Integer.class, index);
+    }
+
+    @Benchmark
+    public Integer coerceLongToInteger() {
+        return UEL.coerceToType(context, Integer.class, longValue);
+    }
+
+    @Benchmark
+    public Integer coerceLongToIntegerInNewContext() {
+        return UEL.coerceToType(new SimpleELContext(), Integer.class, longValue);
+    }
+
+    @Benchmark
+    public Object coerceLongToIntegerByExpressionFactory() {
+        return UEL.getExpressionFactory(context).coerceToType(longValue, Integer.class);
+    }
+}
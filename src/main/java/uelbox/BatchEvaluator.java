@@ -0,0 +1,234 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.PropertyNotWritableException;
+import javax.el.ValueExpression;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Evaluates a single {@link ValueExpression} across a batch of root objects, e.g. {@code #{row.customer.region}} across
+ * a collection of rows. The root object is exposed as a top-level identifier resolved by {@link ELResolver} rather
+ * than by {@link javax.el.VariableMapper}, so that one evaluation-scoped {@link ELContext} serves an entire batch (or,
+ * in parallel mode, an entire chunk) and the expression is {@link CompiledExpression compiled} once for it; the
+ * expression must therefore have been created against a context in which the root identifier is not a variable.
+ * Instances are thread-safe so long as the underlying {@link ELContext} is not modified during evaluation.
+ */
+public final class BatchEvaluator {
+    /**
+     * Marks a value not obtained by compilation.
+     */
+    private static final Object NOT_EVALUATED = new Object();
+
+    /**
+     * {@link ELResolver} exposing the current root object of a batch, together with the evaluation-scoped
+     * {@link ELContext} that uses it.
+     */
+    private class Worker extends ELResolverWrapper {
+        final ELContext workerContext;
+        Object root;
+        CompiledExpression compiled;
+
+        Worker() {
+            super(context.getELResolver());
+            workerContext = new ELContextWrapper(context) {
+
+                @Override
+                protected ELResolver wrap(ELResolver elResolver) {
+                    return Worker.this;
+                }
+            };
+        }
+
+        Object evaluate(Object root) {
+            this.root = root;
+            if (compiled == null) {
+                if (root == null) {
+                    return expression.getValue(workerContext);
+                }
+                // spare the first root a second traversal by keeping the value obtained by compilation, if any:
+                final Object[] value = { NOT_EVALUATED };
+                compiled = CompiledExpression.compile(workerContext, expression, value, wrapped);
+                if (value[0] != NOT_EVALUATED) {
+                    return value[0];
+                }
+            }
+            return compiled.getValue(workerContext);
+        }
+
+        void evaluate(Object[] roots, int from, int to, Object[] results) {
+            for (int i = from; i < to; i++) {
+                results[i] = evaluate(roots[i]);
+            }
+        }
+
+        private boolean isRoot(Object base, Object property) {
+            return base == null && variable.equals(property);
+        }
+
+        @Override
+        public Class<?> getType(ELContext context, Object base, Object property) {
+            if (isRoot(base, property)) {
+                context.setPropertyResolved(true);
+                return Object.class;
+            }
+            return super.getType(context, base, property);
+        }
+
+        @Override
+        public Object getValue(ELContext context, Object base, Object property) {
+            if (isRoot(base, property)) {
+                context.setPropertyResolved(true);
+                return root;
+            }
+            return super.getValue(context, base, property);
+        }
+
+        @Override
+        public boolean isReadOnly(ELContext context, Object base, Object property) {
+            if (isRoot(base, property)) {
+                context.setPropertyResolved(true);
+                return true;
+            }
+            return super.isReadOnly(context, base, property);
+        }
+
+        @Override
+        public void setValue(ELContext context, Object base, Object property, Object value) {
+            if (isRoot(base, property)) {
+                throw new PropertyNotWritableException(variable);
+            }
+            super.setValue(context, base, property, value);
+        }
+    }
+
+    private final ELContext context;
+    private final String variable;
+    private final ValueExpression expression;
+
+    /**
+     * Create a new BatchEvaluator.
+     * 
+     * @param context
+     *            against which {@code expression} was created
+     * @param variable
+     *            name of the root identifier, not a variable of {@code context}
+     * @param expression
+     */
+    public BatchEvaluator(ELContext context, String variable, ValueExpression expression) {
+        this.context = Validate.notNull(context, "context");
+        this.variable = Validate.notBlank(variable, "variable");
+        this.expression = Validate.notNull(expression, "expression");
+        Validate.isTrue(context.getVariableMapper() == null
+            || context.getVariableMapper().resolveVariable(variable) == null,
+            "%s would be shadowed by the variable of the same name", variable);
+    }
+
+    /**
+     * Get the expression evaluated.
+     * 
+     * @return ValueExpression
+     */
+    public ValueExpression getExpression() {
+        return expression;
+    }
+
+    /**
+     * Evaluate against each of {@code roots}, in order.
+     * 
+     * @param roots
+     * @return Object[] of results, coerced to the expected type of the expression
+     */
+    public Object[] evaluateAll(Object[] roots) {
+        Validate.notNull(roots, "roots");
+        final Object[] result = new Object[roots.length];
+        new Worker().evaluate(roots, 0, roots.length, result);
+        return result;
+    }
+
+    /**
+     * Evaluate against each of {@code roots}, in order.
+     * 
+     * @param roots
+     * @return List of results, coerced to the expected type of the expression
+     */
+    public List<Object> evaluateAll(Iterable<?> roots) {
+        Validate.notNull(roots, "roots");
+        final List<Object> result =
+            roots instanceof Collection<?> ? new ArrayList<Object>(((Collection<?>) roots).size())
+                : new ArrayList<Object>();
+        final Worker worker = new Worker();
+        for (Object root : roots) {
+            result.add(worker.evaluate(root));
+        }
+        return result;
+    }
+
+    /**
+     * Evaluate against each of {@code roots}, splitting the input into up to {@code parallelism} contiguous chunks
+     * evaluated by {@code executor}, each with its own evaluation-scoped {@link ELContext}. Blocks until all chunks are
+     * complete; a failure of any chunk is rethrown.
+     * 
+     * @param roots
+     * @param executor
+     * @param parallelism
+     * @return Object[] of results, in order, coerced to the expected type of the expression
+     */
+    public Object[] evaluateAll(final Object[] roots, ExecutorService executor, int parallelism) {
+        Validate.notNull(roots, "roots");
+        final Object[] result = new Object[roots.length];
+        Chunks.run(executor, parallelism, roots.length, new Chunks.Task() {
+
+            @Override
+            public void run(int from, int to) {
+                new Worker().evaluate(roots, from, to, result);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Evaluate against each of {@code roots} in parallel, per {@link #evaluateAll(Object[], ExecutorService, int)}.
+     * 
+     * @param roots
+     * @param executor
+     * @param parallelism
+     * @return List of results, in order, coerced to the expected type of the expression
+     */
+    public List<Object> evaluateAll(Iterable<?> roots, ExecutorService executor, int parallelism) {
+        Validate.notNull(roots, "roots");
+        final Object[] array;
+        if (roots instanceof Collection<?>) {
+            array = ((Collection<?>) roots).toArray();
+        } else {
+            final List<Object> list = new ArrayList<Object>();
+            for (Object root : roots) {
+                list.add(root);
+            }
+            array = list.toArray();
+        }
+        return Arrays.asList(evaluateAll(array, executor, parallelism));
+    }
+}
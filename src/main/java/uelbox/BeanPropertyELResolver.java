@@ -0,0 +1,375 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.beans.BeanInfo;
+import java.beans.FeatureDescriptor;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.el.ELContext;
+import javax.el.ELException;
+import javax.el.ELResolver;
+import javax.el.MethodNotFoundException;
+import javax.el.PropertyNotFoundException;
+import javax.el.PropertyNotWritableException;
+
+/**
+ * Drop-in replacement for {@link javax.el.BeanELResolver} whose per-class property tables are built once and shared
+ * by all instances. Each table maps property names to accessor {@link Method}s already resolved to a publicly
+ * accessible declaration, so that a property step costs a single hash lookup plus the accessor invocation; like
+ * {@link javax.el.BeanELResolver}, a method with no public declaration among the public supertypes of its class is
+ * treated as absent rather than forcibly made accessible. Tables of classes visible to the {@link ClassLoader} of
+ * uelbox itself are held strongly; those of other classes are weakly keyed and held weakly, and simply rebuilt should
+ * they be reclaimed, so that caching never prevents a {@link ClassLoader} from being discarded. EL 2.2 method
+ * invocations are supported as well, against public methods looked up by name and parameter count.
+ */
+public class BeanPropertyELResolver extends ELResolver {
+    /**
+     * Resolved accessors of a single property.
+     */
+    private static class Property {
+        final FeatureDescriptor descriptor;
+        final Class<?> type;
+        final Method readMethod;
+        final Method writeMethod;
+
+        Property(Class<?> beanType, PropertyDescriptor descriptor) {
+            this.descriptor = descriptor;
+            this.type = descriptor.getPropertyType();
+            this.readMethod = accessible(beanType, descriptor.getReadMethod());
+            this.writeMethod = accessible(beanType, descriptor.getWriteMethod());
+            descriptor.setValue(TYPE, type);
+            descriptor.setValue(RESOLVABLE_AT_DESIGN_TIME, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Properties of a single class.
+     */
+    private static class PropertyTable {
+        final Class<?> type;
+        final Map<String, Property> properties;
+
+        /**
+         * Public methods by name, built upon first method invocation.
+         */
+        volatile Map<String, Method[]> methods;
+
+        PropertyTable(Class<?> type) {
+            this.type = type;
+            final BeanInfo beanInfo;
+            try {
+                beanInfo = Introspector.getBeanInfo(type);
+            } catch (IntrospectionException e) {
+                throw new ELException(e);
+            }
+            final Map<String, Property> map = new HashMap<String, Property>();
+            for (PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+                // indexed-only properties have no type per se and are not supported by the EL:
+                if (descriptor.getPropertyType() != null) {
+                    map.put(descriptor.getName(), new Property(type, descriptor));
+                }
+            }
+            this.properties = map;
+        }
+
+        Property get(Object property) {
+            final Property result = properties.get(property.toString());
+            if (result == null) {
+                throw new PropertyNotFoundException(String.format("Property '%s' not found on type %s", property,
+                    type.getName()));
+            }
+            return result;
+        }
+
+        Method[] getMethods(String name) {
+            Map<String, Method[]> m = methods;
+            if (m == null) {
+                final Map<String, List<Method>> byName = new HashMap<String, List<Method>>();
+                for (Method method : type.getMethods()) {
+                    List<Method> list = byName.get(method.getName());
+                    if (list == null) {
+                        list = new ArrayList<Method>();
+                        byName.put(method.getName(), list);
+                    }
+                    final Method accessible = accessible(type, method);
+                    if (accessible != null) {
+                        list.add(accessible);
+                    }
+                }
+                m = new HashMap<String, Method[]>();
+                for (Map.Entry<String, List<Method>> e : byName.entrySet()) {
+                    m.put(e.getKey(), e.getValue().toArray(new Method[e.getValue().size()]));
+                }
+                methods = m;
+            }
+            final Method[] result = m.get(name);
+            return result == null ? NO_METHODS : result;
+        }
+    }
+
+    private static final Method[] NO_METHODS = new Method[0];
+
+    private static final ConcurrentMap<Class<?>, PropertyTable> STRONG_TABLES =
+        new ConcurrentHashMap<Class<?>, PropertyTable>();
+
+    private static final ClassMap<Reference<PropertyTable>> WEAK_TABLES = new ClassMap<Reference<PropertyTable>>();
+
+    private final boolean readOnly;
+
+    /**
+     * Create a new read/write BeanPropertyELResolver.
+     */
+    public BeanPropertyELResolver() {
+        this(false);
+    }
+
+    /**
+     * Create a new BeanPropertyELResolver.
+     * 
+     * @param readOnly
+     */
+    public BeanPropertyELResolver(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    @Override
+    public Object getValue(ELContext context, Object base, Object property) {
+        if (base == null || property == null) {
+            return null;
+        }
+        final Method readMethod = getProperty(context, base, property).readMethod;
+        if (readMethod == null) {
+            throw new PropertyNotFoundException(String.format("Property '%s' not readable on type %s", property,
+                base.getClass().getName()));
+        }
+        return invoke(readMethod, base);
+    }
+
+    @Override
+    public Class<?> getType(ELContext context, Object base, Object property) {
+        if (base == null || property == null) {
+            return null;
+        }
+        return getProperty(context, base, property).type;
+    }
+
+    @Override
+    public void setValue(ELContext context, Object base, Object property, Object value) {
+        if (base == null || property == null) {
+            return;
+        }
+        final Method writeMethod = getProperty(context, base, property).writeMethod;
+        if (readOnly || writeMethod == null) {
+            throw new PropertyNotWritableException(String.format("Property '%s' not writable on type %s", property,
+                base.getClass().getName()));
+        }
+        invoke(writeMethod, base, value);
+    }
+
+    @Override
+    public boolean isReadOnly(ELContext context, Object base, Object property) {
+        if (base == null || property == null) {
+            return false;
+        }
+        return readOnly || getProperty(context, base, property).writeMethod == null;
+    }
+
+    /**
+     * Invoke a public method of {@code base} in the manner of {@link javax.el.BeanELResolver}, coercing
+     * {@code params} to the parameter types of the method.
+     */
+    @Override
+    public Object invoke(ELContext context, Object base, Object method, Class<?>[] paramTypes, Object[] params) {
+        if (base == null || method == null) {
+            return null;
+        }
+        final Object[] args = params == null ? new Object[0] : params;
+        final Method target = findMethod(base.getClass(), method.toString(), paramTypes, args.length);
+        final Class<?>[] parameterTypes = target.getParameterTypes();
+        final Object[] parameters = new Object[parameterTypes.length];
+        final int fixed = target.isVarArgs() ? parameterTypes.length - 1 : parameterTypes.length;
+        for (int i = 0; i < fixed; i++) {
+            parameters[i] = UEL.coerceToType(context, parameterTypes[i], args[i]);
+        }
+        if (target.isVarArgs()) {
+            final Class<?> componentType = parameterTypes[fixed].getComponentType();
+            final Object varargs = Array.newInstance(componentType, args.length - fixed);
+            for (int i = fixed; i < args.length; i++) {
+                Array.set(varargs, i - fixed, UEL.coerceToType(context, componentType, args[i]));
+            }
+            parameters[fixed] = varargs;
+        }
+        final Object result = invoke(target, base, parameters);
+        context.setPropertyResolved(true);
+        return result;
+    }
+
+    @Override
+    public Iterator<FeatureDescriptor> getFeatureDescriptors(ELContext context, Object base) {
+        if (base == null) {
+            return null;
+        }
+        final Iterator<Property> iter = getTable(base.getClass()).properties.values().iterator();
+        return new Iterator<FeatureDescriptor>() {
+
+            @Override
+            public boolean hasNext() {
+                return iter.hasNext();
+            }
+
+            @Override
+            public FeatureDescriptor next() {
+                return iter.next().descriptor;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public Class<?> getCommonPropertyType(ELContext context, Object base) {
+        return base == null ? null : Object.class;
+    }
+
+    private Property getProperty(ELContext context, Object base, Object property) {
+        final Property result = getTable(base.getClass()).get(property);
+        context.setPropertyResolved(true);
+        return result;
+    }
+
+    private static Method findMethod(Class<?> type, String name, Class<?>[] paramTypes, int paramCount) {
+        Method varArgs = null;
+        for (Method method : getTable(type).getMethods(name)) {
+            final Class<?>[] parameterTypes = method.getParameterTypes();
+            if (paramTypes == null ? parameterTypes.length == paramCount : Arrays.equals(parameterTypes, paramTypes)) {
+                return method;
+            }
+            if (paramTypes == null && method.isVarArgs() && paramCount >= parameterTypes.length - 1) {
+                varArgs = method;
+            }
+        }
+        if (varArgs == null) {
+            throw new MethodNotFoundException(String.format("Method '%s' not found on type %s", name,
+                type.getName()));
+        }
+        return varArgs;
+    }
+
+    /**
+     * Get the accessible read method of the specified property of the specified class, as shared by all instances.
+     * 
+     * @param type
+     * @param property
+     * @return Method or {@code null} if no such readable property exists
+     */
+    static Method getReadMethod(Class<?> type, String property) {
+        final Property p = getTable(type).properties.get(property);
+        return p == null ? null : p.readMethod;
+    }
+
+    /**
+     * Invoke an accessor, wrapping failures as {@link ELException}s.
+     * 
+     * @param method
+     * @param target
+     * @param args
+     * @return Object
+     */
+    static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw new ELException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new ELException(e);
+        } catch (IllegalArgumentException e) {
+            throw new ELException(e);
+        }
+    }
+
+    private static PropertyTable getTable(Class<?> type) {
+        PropertyTable result = STRONG_TABLES.get(type);
+        if (result != null) {
+            return result;
+        }
+        final Reference<PropertyTable> ref = WEAK_TABLES.get(type);
+        result = ref == null ? null : ref.get();
+        if (result != null) {
+            return result;
+        }
+        result = new PropertyTable(type);
+        if (UEL.isCacheSafe(type)) {
+            final PropertyTable raced = STRONG_TABLES.putIfAbsent(type, result);
+            return raced == null ? result : raced;
+        }
+        // a racing thread may have introspected the same class; either table is equally good:
+        WEAK_TABLES.put(type, new WeakReference<PropertyTable>(result));
+        return result;
+    }
+
+    /**
+     * Get an invocable equivalent of {@code method} as seen from {@code type}, searching the public supertypes of
+     * {@code type} when {@code method} is declared by a type that is not itself public.
+     * 
+     * @return Method or {@code null} if none is publicly accessible
+     */
+    private static Method accessible(Class<?> type, Method method) {
+        if (method == null || Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            return method;
+        }
+        return findPublic(type, method.getName(), method.getParameterTypes());
+    }
+
+    private static Method findPublic(Class<?> type, String name, Class<?>[] parameterTypes) {
+        if (type == null) {
+            return null;
+        }
+        if (Modifier.isPublic(type.getModifiers())) {
+            try {
+                return type.getMethod(name, parameterTypes);
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+        for (Class<?> iface : type.getInterfaces()) {
+            final Method result = findPublic(iface, name, parameterTypes);
+            if (result != null) {
+                return result;
+            }
+        }
+        return findPublic(type.getSuperclass(), name, parameterTypes);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.el.ELException;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Splits an indexed workload into contiguous chunks executed by an {@link ExecutorService}.
+ */
+final class Chunks {
+    /**
+     * Processes a single chunk.
+     */
+    interface Task {
+        /**
+         * Process indexes {@code [from, to)}.
+         * 
+         * @param from
+         * @param to
+         */
+        void run(int from, int to);
+    }
+
+    private Chunks() {
+    }
+
+    /**
+     * Run {@code task} over {@code [0, length)} split into up to {@code parallelism} chunks, blocking until all are
+     * complete. A single chunk runs on the calling thread. A failure of any chunk cancels the rest and is rethrown.
+     * 
+     * @param executor
+     * @param parallelism
+     * @param length
+     * @param task
+     */
+    static void run(ExecutorService executor, int parallelism, int length, final Task task) {
+        Validate.notNull(executor, "executor");
+        Validate.isTrue(parallelism > 0, "parallelism must be positive");
+
+        final int chunks = Math.min(parallelism, length);
+        if (chunks <= 1) {
+            task.run(0, length);
+            return;
+        }
+        final List<Future<?>> futures = new ArrayList<Future<?>>(chunks);
+        try {
+            for (int c = 0; c < chunks; c++) {
+                final int from = (int) ((long) length * c / chunks);
+                final int to = (int) ((long) length * (c + 1) / chunks);
+                futures.add(executor.submit(new Callable<Void>() {
+
+                    @Override
+                    public Void call() {
+                        task.run(from, to);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ELException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ELException(cause);
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+}
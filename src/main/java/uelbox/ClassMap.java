@@ -0,0 +1,94 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Concurrent map keyed by {@link Class}, in which classes that are safe to cache per {@link UEL#isCacheSafe(Class)}
+ * are held strongly and all others weakly, so that caching by class does not pin foreign class loaders. Neither
+ * reads nor writes take a lock. Values must not strongly reference their weakly held keys.
+ *
+ * @param <V>
+ */
+class ClassMap<V> {
+    private final ConcurrentMap<Class<?>, V> strong = new ConcurrentHashMap<Class<?>, V>();
+    private final WeakKeyMap<Class<?>, V> weak = new WeakKeyMap<Class<?>, V>();
+
+    /**
+     * Get the value mapped to {@code type}.
+     *
+     * @param type
+     * @return V or {@code null}
+     */
+    V get(Class<?> type) {
+        final V result = strong.get(type);
+        return result == null ? weak.get(type) : result;
+    }
+
+    /**
+     * Map {@code type} to {@code value}.
+     *
+     * @param type
+     * @param value
+     * @return previous value or {@code null}
+     */
+    V put(Class<?> type, V value) {
+        return UEL.isCacheSafe(type) ? strong.put(type, value) : weak.put(type, value);
+    }
+
+    /**
+     * Map {@code type} to {@code value} unless already mapped.
+     *
+     * @param type
+     * @param value
+     * @return existing value or {@code null}
+     */
+    V putIfAbsent(Class<?> type, V value) {
+        return UEL.isCacheSafe(type) ? strong.putIfAbsent(type, value) : weak.putIfAbsent(type, value);
+    }
+
+    /**
+     * Remove all mappings.
+     */
+    void clear() {
+        strong.clear();
+        weak.clear();
+    }
+
+    /**
+     * Get the number of mappings, possibly including some whose weakly held class has been collected.
+     *
+     * @return int
+     */
+    int size() {
+        return strong.size() + weak.size();
+    }
+
+    /**
+     * Copy the live mappings into a new {@link Map}.
+     *
+     * @return Map
+     */
+    Map<Class<?>, V> toMap() {
+        final Map<Class<?>, V> result = new HashMap<Class<?>, V>(strong);
+        weak.copyTo(result);
+        return result;
+    }
+}
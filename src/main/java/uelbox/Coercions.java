@@ -0,0 +1,419 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import javax.el.ELContext;
+
+import org.apache.commons.lang3.ClassUtils;
+
+/**
+ * Coercion engine backing {@link UEL#coerceToType(ELContext, Class, Object)}. A {@link Coercer} specialized per
+ * (source class, target type) is selected once and cached in a direct-mapped table; coercers implement the EL 2.2
+ * rules (spec section 1.18) directly for {@link String}, {@link Character}, {@link Boolean}, primitive and boxed
+ * numeric, and enum targets, as well as for values already assignable to the target type, and defer to the
+ * {@link javax.el.ExpressionFactory} of the {@link ELContext} for all remaining cases, including all coercion errors.
+ */
+final class Coercions {
+    /**
+     * Specialized coercion from a given source class to a given target type.
+     */
+    private abstract static class Coercer {
+        /**
+         * Coerce {@code value}.
+         * 
+         * @param value
+         *            non-{@code null}
+         * @return coerced value or {@link #DEFER}
+         */
+        abstract Object coerce(Object value);
+    }
+
+    /**
+     * Returned by a {@link Coercer} that cannot handle a value.
+     */
+    private static final Object DEFER = new Object();
+
+    private static final Coercer IDENTITY = new Coercer() {
+
+        @Override
+        Object coerce(Object value) {
+            return value;
+        }
+    };
+
+    private static final Coercer DEFERRING = new Coercer() {
+
+        @Override
+        Object coerce(Object value) {
+            return DEFER;
+        }
+    };
+
+    private static final Coercer TO_STRING = new Coercer() {
+
+        @Override
+        Object coerce(Object value) {
+            return value instanceof Enum<?> ? ((Enum<?>) value).name() : value.toString();
+        }
+    };
+
+    private static final Coercer STRING_TO_CHARACTER = new Coercer() {
+
+        @Override
+        Object coerce(Object value) {
+            final String s = (String) value;
+            return Character.valueOf(s.length() == 0 ? (char) 0 : s.charAt(0));
+        }
+    };
+
+    private static final Coercer NUMBER_TO_CHARACTER = new Coercer() {
+
+        @Override
+        Object coerce(Object value) {
+            return Character.valueOf((char) ((Number) value).shortValue());
+        }
+    };
+
+    private static final Coercer STRING_TO_BOOLEAN = new Coercer() {
+
+        @Override
+        Object coerce(Object value) {
+            return Boolean.valueOf((String) value);
+        }
+    };
+
+    /**
+     * Coercion to one of the primitive numeric types or its wrapper.
+     */
+    private abstract static class NumberCoercer extends Coercer {
+        final Coercer fromString = new Coercer() {
+
+            @Override
+            Object coerce(Object value) {
+                final String s = (String) value;
+                if (s.length() == 0) {
+                    return zero();
+                }
+                try {
+                    return parse(s);
+                } catch (NumberFormatException e) {
+                    return DEFER;
+                }
+            }
+        };
+
+        final Coercer fromCharacter = new Coercer() {
+
+            @Override
+            Object coerce(Object value) {
+                return convert(Short.valueOf((short) ((Character) value).charValue()));
+            }
+        };
+
+        @Override
+        Object coerce(Object value) {
+            return convert((Number) value);
+        }
+
+        abstract Object convert(Number value);
+
+        abstract Object parse(String value);
+
+        abstract Object zero();
+    }
+
+    private static final NumberCoercer TO_BYTE = new NumberCoercer() {
+
+        @Override
+        Object convert(Number value) {
+            return Byte.valueOf(value.byteValue());
+        }
+
+        @Override
+        Object parse(String value) {
+            return Byte.valueOf(value);
+        }
+
+        @Override
+        Object zero() {
+            return Byte.valueOf((byte) 0);
+        }
+    };
+
+    private static final NumberCoercer TO_SHORT = new NumberCoercer() {
+
+        @Override
+        Object convert(Number value) {
+            return Short.valueOf(value.shortValue());
+        }
+
+        @Override
+        Object parse(String value) {
+            return Short.valueOf(value);
+        }
+
+        @Override
+        Object zero() {
+            return Short.valueOf((short) 0);
+        }
+    };
+
+    private static final NumberCoercer TO_INTEGER = new NumberCoercer() {
+
+        @Override
+        Object convert(Number value) {
+            return Integer.valueOf(value.intValue());
+        }
+
+        @Override
+        Object parse(String value) {
+            return Integer.valueOf(value);
+        }
+
+        @Override
+        Object zero() {
+            return Integer.valueOf(0);
+        }
+    };
+
+    private static final NumberCoercer TO_LONG = new NumberCoercer() {
+
+        @Override
+        Object convert(Number value) {
+            return Long.valueOf(value.longValue());
+        }
+
+        @Override
+        Object parse(String value) {
+            return Long.valueOf(value);
+        }
+
+        @Override
+        Object zero() {
+            return Long.valueOf(0L);
+        }
+    };
+
+    private static final NumberCoercer TO_FLOAT = new NumberCoercer() {
+
+        @Override
+        Object convert(Number value) {
+            return Float.valueOf(value.floatValue());
+        }
+
+        @Override
+        Object parse(String value) {
+            return Float.valueOf(value);
+        }
+
+        @Override
+        Object zero() {
+            return Float.valueOf(0f);
+        }
+    };
+
+    private static final NumberCoercer TO_DOUBLE = new NumberCoercer() {
+
+        @Override
+        Object convert(Number value) {
+            return Double.valueOf(value.doubleValue());
+        }
+
+        @Override
+        Object parse(String value) {
+            return Double.valueOf(value);
+        }
+
+        @Override
+        Object zero() {
+            return Double.valueOf(0d);
+        }
+    };
+
+    /**
+     * Coercion to an enum type.
+     */
+    private static class EnumCoercer extends Coercer {
+        @SuppressWarnings("rawtypes")
+        final Class enumType;
+
+        EnumCoercer(Class<?> enumType) {
+            this.enumType = enumType;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Object coerce(Object value) {
+            final String s = (String) value;
+            if (s.length() == 0) {
+                return null;
+            }
+            try {
+                return Enum.valueOf(enumType, s);
+            } catch (IllegalArgumentException e) {
+                return DEFER;
+            }
+        }
+    }
+
+    /**
+     * Immutable entry of the coercer table.
+     */
+    private static class Entry {
+        final Class<?> source;
+        final Class<?> target;
+        final Coercer coercer;
+
+        Entry(Class<?> source, Class<?> target, Coercer coercer) {
+            this.source = source;
+            this.target = target;
+            this.coercer = coercer;
+        }
+    }
+
+    private static final int TABLE_SIZE = 512;
+
+    /**
+     * Direct-mapped coercer cache: colliding (source, target) pairs simply displace one another. Entries being
+     * immutable, unsynchronized access is safe.
+     */
+    private static final Entry[] TABLE = new Entry[TABLE_SIZE];
+
+    private Coercions() {
+    }
+
+    /**
+     * Coerce {@code object} to {@code toType}.
+     * 
+     * @param context
+     * @param toType
+     * @param object
+     * @return Object
+     * @throws javax.el.ELException
+     *             if the coercion fails
+     */
+    static Object coerceToType(ELContext context, Class<?> toType, Object object) {
+        final Object result;
+        if (object == null) {
+            result = coerceNull(toType);
+        } else {
+            final Class<?> source = object.getClass();
+            result = source == toType ? object : getCoercer(source, toType).coerce(object);
+        }
+        return result == DEFER ? UEL.getExpressionFactory(context).coerceToType(object, toType) : result;
+    }
+
+    private static Object coerceNull(Class<?> toType) {
+        final Class<?> target = ClassUtils.primitiveToWrapper(toType);
+        if (target == String.class) {
+            return "";
+        }
+        if (target == Boolean.class) {
+            return Boolean.FALSE;
+        }
+        if (target == Character.class) {
+            return Character.valueOf((char) 0);
+        }
+        final NumberCoercer numberCoercer = numberCoercer(target);
+        if (numberCoercer != null) {
+            return numberCoercer.zero();
+        }
+        return toType.isPrimitive() || Number.class.isAssignableFrom(target) ? DEFER : null;
+    }
+
+    private static Coercer getCoercer(Class<?> source, Class<?> toType) {
+        int h = source.hashCode() * 31 + toType.hashCode();
+        h ^= h >>> 16;
+        final int index = h & (TABLE_SIZE - 1);
+        final Entry entry = TABLE[index];
+        if (entry != null && entry.source == source && entry.target == toType) {
+            return entry.coercer;
+        }
+        final Coercer result = createCoercer(source, toType);
+        if (UEL.isCacheSafe(source) && UEL.isCacheSafe(toType)) {
+            TABLE[index] = new Entry(source, toType, result);
+        }
+        return result;
+    }
+
+    private static Coercer createCoercer(Class<?> source, Class<?> toType) {
+        final Class<?> target = ClassUtils.primitiveToWrapper(toType);
+        if (target == String.class) {
+            return source == String.class ? IDENTITY : TO_STRING;
+        }
+        if (target == Character.class) {
+            if (source == Character.class) {
+                return IDENTITY;
+            }
+            if (source == String.class) {
+                return STRING_TO_CHARACTER;
+            }
+            return Number.class.isAssignableFrom(source) ? NUMBER_TO_CHARACTER : DEFERRING;
+        }
+        if (target == Boolean.class) {
+            if (source == Boolean.class) {
+                return IDENTITY;
+            }
+            return source == String.class ? STRING_TO_BOOLEAN : DEFERRING;
+        }
+        final NumberCoercer numberCoercer = numberCoercer(target);
+        if (numberCoercer != null) {
+            if (source == target) {
+                return IDENTITY;
+            }
+            if (source == String.class) {
+                return numberCoercer.fromString;
+            }
+            if (source == Character.class) {
+                return numberCoercer.fromCharacter;
+            }
+            return Number.class.isAssignableFrom(source) ? numberCoercer : DEFERRING;
+        }
+        if (target.isEnum()) {
+            if (target.isAssignableFrom(source)) {
+                return IDENTITY;
+            }
+            return source == String.class ? new EnumCoercer(target) : DEFERRING;
+        }
+        if (Number.class.isAssignableFrom(target)) {
+            // BigDecimal, BigInteger, and the like:
+            return source == target ? IDENTITY : DEFERRING;
+        }
+        return target.isAssignableFrom(source) ? IDENTITY : DEFERRING;
+    }
+
+    private static NumberCoercer numberCoercer(Class<?> target) {
+        if (target == Integer.class) {
+            return TO_INTEGER;
+        }
+        if (target == Long.class) {
+            return TO_LONG;
+        }
+        if (target == Double.class) {
+            return TO_DOUBLE;
+        }
+        if (target == Short.class) {
+            return TO_SHORT;
+        }
+        if (target == Byte.class) {
+            return TO_BYTE;
+        }
+        if (target == Float.class) {
+            return TO_FLOAT;
+        }
+        return null;
+    }
+}
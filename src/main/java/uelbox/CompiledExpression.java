@@ -0,0 +1,509 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.Set;
+
+import javax.el.ArrayELResolver;
+import javax.el.BeanELResolver;
+import javax.el.ELContext;
+import javax.el.ELException;
+import javax.el.ELResolver;
+import javax.el.ListELResolver;
+import javax.el.MapELResolver;
+import javax.el.ValueExpression;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Evaluation shortcut for {@link ValueExpression}s consisting of a simple property path, e.g. {@code #{order.customer}}
+ * or {@code #{row['total'][0]}}. Compilation traverses the path once by way of a {@link HelperELResolver}, recording
+ * each (base, property) step, and compiles each step to a direct {@link Map}, {@link List}, array, {@link Tuple} or
+ * bean property accessor guarded on the class of the base object observed. Subsequent evaluations execute these
+ * accessors directly, bypassing the expression tree and resolver chain, and fall back to evaluating the original
+ * expression whenever a guard fails, the evaluating context's {@link ELResolver} is neither the very instance seen at
+ * compilation nor a {@link DispatchingELResolver} having the same delegates, or the expression could not be compiled
+ * at all. Compiled accessors reproduce the behavior of the standard resolvers, so compilation records which resolver
+ * handled each step, and declines unless each was the standard resolver corresponding to its accessor; thus the
+ * {@link ELResolver} in play at compilation must be a standard resolver or a {@link DispatchingELResolver} over
+ * standard resolvers, such as that of {@link SimpleELContext}.
+ */
+public final class CompiledExpression {
+    private static final Set<String> RESERVED_WORDS = new HashSet<String>(Arrays.asList("and", "or", "not", "eq",
+        "ne", "lt", "gt", "le", "ge", "true", "false", "null", "instanceof", "empty", "div", "mod"));
+
+    /**
+     * Returned by {@link CompiledExpression#execute(ELContext)} and {@link Step#get(Object)} to request fallback
+     * evaluation.
+     */
+    private static final Object FALLBACK = new Object();
+
+    /**
+     * Compiled accessor of a single property step.
+     */
+    private abstract static class Step {
+        final Class<?> type;
+
+        Step(Class<?> type) {
+            this.type = type;
+        }
+
+        abstract Object get(Object base);
+    }
+
+    private static class MapStep extends Step {
+        final Object key;
+
+        MapStep(Class<?> type, Object key) {
+            super(type);
+            this.key = key;
+        }
+
+        @Override
+        Object get(Object base) {
+            return ((Map<?, ?>) base).get(key);
+        }
+    }
+
+    private static class ListStep extends Step {
+        final int index;
+
+        ListStep(Class<?> type, int index) {
+            super(type);
+            this.index = index;
+        }
+
+        @Override
+        Object get(Object base) {
+            final List<?> list = (List<?>) base;
+            return index < list.size() ? list.get(index) : null;
+        }
+    }
+
+    private static class ArrayStep extends Step {
+        final int index;
+
+        ArrayStep(Class<?> type, int index) {
+            super(type);
+            this.index = index;
+        }
+
+        @Override
+        Object get(Object base) {
+            return index < Array.getLength(base) ? Array.get(base, index) : null;
+        }
+    }
+
+    private static class TupleStep extends Step {
+        final TupleSchema schema;
+        final int slot;
+
+        TupleStep(TupleSchema schema, int slot) {
+            super(Tuple.class);
+            this.schema = schema;
+            this.slot = slot;
+        }
+
+        @Override
+        Object get(Object base) {
+            final Tuple tuple = (Tuple) base;
+            return tuple.getSchema() == schema ? tuple.get(slot) : FALLBACK;
+        }
+    }
+
+    private static class BeanStep extends Step {
+        final Method readMethod;
+
+        BeanStep(Class<?> type, Method readMethod) {
+            super(type);
+            this.readMethod = readMethod;
+        }
+
+        @Override
+        Object get(Object base) {
+            return BeanPropertyELResolver.invoke(readMethod, base);
+        }
+    }
+
+    /**
+     * Resolves root identifiers by way of the wrapped {@link ELResolver}, and properties by way of the delegates of
+     * the {@link ELResolver} resolving them, in order, noting the delegate that last resolved a property.
+     */
+    private static class Attributing extends ELResolverWrapper {
+        final ELResolver[] delegates;
+        final ELResolver[] resolvedBy = new ELResolver[1];
+
+        Attributing(ELResolver wrapped, ELResolver[] delegates) {
+            super(wrapped);
+            this.delegates = delegates;
+        }
+
+        @Override
+        public Object getValue(ELContext context, Object base, Object property) {
+            if (base == null) {
+                return super.getValue(context, base, property);
+            }
+            context.setPropertyResolved(false);
+            for (ELResolver delegate : delegates) {
+                final Object result = delegate.getValue(context, base, property);
+                if (context.isPropertyResolved()) {
+                    resolvedBy[0] = delegate;
+                    return result;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Records the (base, property, resolving delegate) steps of the main expression. The final step is recorded
+     * without being read, and thus without a resolving delegate.
+     */
+    private static class Recorder extends HelperELResolver.WithWorkingStorage.AsResult<List<Object[]>> {
+        final ELResolver[] resolvedBy;
+
+        Recorder(Attributing attributing) {
+            super(attributing);
+            this.resolvedBy = attributing.resolvedBy;
+        }
+
+        @Override
+        protected List<Object[]> createWorkingStorage(ELContext context, Object base) {
+            return new ArrayList<Object[]>();
+        }
+
+        @Override
+        protected void afterGetValue(ELContext context, Object base, Object property, Object value,
+            List<Object[]> workingStorage) {
+            workingStorage.add(new Object[] { base, property, resolvedBy[0] });
+            resolvedBy[0] = null;
+        }
+
+        @Override
+        protected List<Object[]> afterSetValue(ELContext context, Object base, Object property,
+            List<Object[]> workingStorage) {
+            workingStorage.add(new Object[] { base, property, null });
+            return workingStorage;
+        }
+    }
+
+    private final ValueExpression expression;
+    private final ELResolver elResolver;
+
+    /**
+     * Delegates of {@link #elResolver} if a {@link DispatchingELResolver}, else {@code null}.
+     */
+    private final ELResolver[] delegates;
+    private final String rootName;
+    private final ValueExpression rootVariable;
+    private final Step[] steps;
+
+    private CompiledExpression(ValueExpression expression, ELResolver elResolver, String rootName,
+        ValueExpression rootVariable, Step[] steps) {
+        this.expression = expression;
+        this.elResolver = elResolver;
+        this.delegates =
+            elResolver instanceof DispatchingELResolver ? ((DispatchingELResolver) elResolver).resolvers() : null;
+        this.rootName = rootName;
+        this.rootVariable = rootVariable;
+        this.steps = steps;
+    }
+
+    /**
+     * Compile {@code expression}, which should have been created against {@code context} (or a context sharing its
+     * {@link javax.el.VariableMapper} and {@link ELResolver}). Compilation evaluates each step of the path once.
+     * 
+     * @param context
+     * @param expression
+     * @return CompiledExpression, possibly not {@link #isCompiled() compiled}
+     */
+    public static CompiledExpression compile(ELContext context, ValueExpression expression) {
+        return compile(context, expression, null);
+    }
+
+    /**
+     * Compile {@code expression} as by {@link #compile(ELContext, ValueExpression)}, additionally storing at index 0 of
+     * {@code value} the result of evaluating {@code expression} against {@code context} whenever the traversal made by
+     * compilation yields it; {@code value} is otherwise left untouched.
+     * 
+     * @param context
+     * @param expression
+     * @param value
+     *            possibly {@code null}
+     * @return CompiledExpression, possibly not {@link #isCompiled() compiled}
+     */
+    static CompiledExpression compile(ELContext context, ValueExpression expression, Object[] value) {
+        return compile(context, expression, value, context.getELResolver());
+    }
+
+    /**
+     * Compile {@code expression} as by {@link #compile(ELContext, ValueExpression, Object[])}, for a context whose
+     * {@link ELResolver} resolves the properties of non-{@code null} base objects by way of {@code propertyResolver}.
+     * 
+     * @param context
+     * @param expression
+     * @param value
+     *            possibly {@code null}
+     * @param propertyResolver
+     * @return CompiledExpression, possibly not {@link #isCompiled() compiled}
+     */
+    static CompiledExpression compile(ELContext context, ValueExpression expression, Object[] value,
+        ELResolver propertyResolver) {
+        Validate.notNull(context, "context");
+        Validate.notNull(expression, "expression");
+        final ELResolver elResolver = context.getELResolver();
+
+        final List<String> segments = getPathSegments(expression);
+        final ELResolver[] delegates;
+        if (propertyResolver instanceof DispatchingELResolver) {
+            delegates = ((DispatchingELResolver) propertyResolver).resolvers();
+        } else {
+            delegates = new ELResolver[] { propertyResolver };
+        }
+        if (segments == null) {
+            return new CompiledExpression(expression, elResolver, null, null, null);
+        }
+        final String rootName = segments.get(0);
+        final ValueExpression rootVariable = context.getVariableMapper().resolveVariable(rootName);
+
+        final List<Object[]> recorded;
+        final Object result;
+        try {
+            recorded = new Recorder(new Attributing(elResolver, delegates)).evaluate(context, expression);
+            if (recorded.isEmpty()) {
+                return new CompiledExpression(expression, elResolver, null, null, null);
+            }
+            // the final step was recorded without being read; read it by way of the delegates, in order:
+            final Object[] last = recorded.get(recorded.size() - 1);
+            result = resolve(context, delegates, last);
+        } catch (ELException e) {
+            return new CompiledExpression(expression, elResolver, null, null, null);
+        }
+        final int first = rootVariable == null ? 1 : 0;
+        if (recorded.size() != segments.size() - 1 + first) {
+            return new CompiledExpression(expression, elResolver, null, null, null);
+        }
+        final Step[] steps = new Step[recorded.size() - first];
+        for (int i = 0; i < steps.length; i++) {
+            final Object[] step = recorded.get(first + i);
+            steps[i] = createStep(context, step[0], step[1], (ELResolver) step[2]);
+            if (steps[i] == null) {
+                return new CompiledExpression(expression, elResolver, null, null, null);
+            }
+        }
+        if (value != null && steps.length > 0) {
+            value[0] = UEL.coerceToType(context, expression.getExpectedType(), result);
+        }
+        return new CompiledExpression(expression, elResolver, rootName, rootVariable, steps);
+    }
+
+    /**
+     * Resolve a recorded step against {@code delegates} in order, recording the resolving delegate at index 2 of
+     * {@code step}.
+     * 
+     * @return resolved value
+     */
+    private static Object resolve(ELContext context, ELResolver[] delegates, Object[] step) {
+        context.setPropertyResolved(false);
+        for (ELResolver delegate : delegates) {
+            final Object result = delegate.getValue(context, step[0], step[1]);
+            if (context.isPropertyResolved()) {
+                step[2] = delegate;
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Learn whether compilation succeeded, such that evaluations may bypass the original expression.
+     * 
+     * @return boolean
+     */
+    public boolean isCompiled() {
+        return steps != null;
+    }
+
+    /**
+     * Get the original expression.
+     * 
+     * @return ValueExpression
+     */
+    public ValueExpression getExpression() {
+        return expression;
+    }
+
+    /**
+     * Evaluate against {@code context}, coercing the result to the expected type of the original expression.
+     * 
+     * @param context
+     * @return Object
+     */
+    public Object getValue(ELContext context) {
+        if (steps != null && isCompiledFor(context.getELResolver())) {
+            final Object result = execute(context);
+            if (result != FALLBACK) {
+                return UEL.coerceToType(context, expression.getExpectedType(), result);
+            }
+        }
+        return expression.getValue(context);
+    }
+
+    private boolean isCompiledFor(ELResolver resolver) {
+        if (resolver == elResolver) {
+            return true;
+        }
+        if (delegates == null || !(resolver instanceof DispatchingELResolver)) {
+            return false;
+        }
+        final ELResolver[] other = ((DispatchingELResolver) resolver).resolvers();
+        return other == delegates || Arrays.equals(other, delegates);
+    }
+
+    private Object execute(ELContext context) {
+        Object base;
+        if (rootVariable == null) {
+            context.setPropertyResolved(false);
+            base = elResolver.getValue(context, null, rootName);
+            if (!context.isPropertyResolved()) {
+                return FALLBACK;
+            }
+        } else {
+            base = rootVariable.getValue(context);
+        }
+        for (Step step : steps) {
+            if (base == null) {
+                return null;
+            }
+            if (base.getClass() != step.type) {
+                return FALLBACK;
+            }
+            base = step.get(base);
+            if (base == FALLBACK) {
+                return FALLBACK;
+            }
+        }
+        return base;
+    }
+
+    /**
+     * Create the accessor for a step, provided that {@code resolvedBy} is the standard resolver whose behavior it
+     * reproduces.
+     */
+    private static Step createStep(ELContext context, Object base, Object property, ELResolver resolvedBy) {
+        if (base == null || property == null || resolvedBy == null) {
+            return null;
+        }
+        final Class<?> type = base.getClass();
+        final Class<?> resolverType = resolvedBy.getClass();
+        if (type.isArray() ? resolverType != ArrayELResolver.class : base instanceof List<?>
+            && resolverType != ListELResolver.class) {
+            return null;
+        }
+        if (type.isArray() || base instanceof List<?>) {
+            final int index;
+            try {
+                index = UEL.coerceToType(context, Integer.class, property).intValue();
+            } catch (ELException e) {
+                return null;
+            }
+            if (index < 0) {
+                return null;
+            }
+            return type.isArray() ? new ArrayStep(type, index) : new ListStep(type, index);
+        }
+        if (base instanceof Map<?, ?>) {
+            return resolverType == MapELResolver.class ? new MapStep(type, property) : null;
+        }
+        if (base instanceof Tuple) {
+            if (resolverType != TupleELResolver.class) {
+                return null;
+            }
+            final TupleSchema schema = ((Tuple) base).getSchema();
+            final int slot = schema.slotOf(property);
+            return slot < 0 ? null : new TupleStep(schema, slot);
+        }
+        if (base instanceof ResourceBundle || resolverType != BeanPropertyELResolver.class
+            && resolverType != BeanELResolver.class) {
+            return null;
+        }
+        final Method readMethod = BeanPropertyELResolver.getReadMethod(type, property.toString());
+        return readMethod == null ? null : new BeanStep(type, readMethod);
+    }
+
+    /**
+     * Get the segments of {@code expression} if it is a simple property path of at least two segments: an identifier
+     * followed by identifiers and/or bracketed string or integer literals.
+     */
+    private static List<String> getPathSegments(ValueExpression expression) {
+        final String text = expression.getExpressionString();
+        if (expression.isLiteralText() || text == null || !UEL.isDelimited(text)) {
+            return null;
+        }
+        final List<String> result = ExpressionPath.parse(text).getSegments();
+        if (result.size() < 2 || !isIdentifier(result.get(0))) {
+            return null;
+        }
+        for (String segment : result.subList(1, result.size())) {
+            if (!isIdentifier(segment) && !isLiteralIndex(segment)) {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    private static boolean isIdentifier(String segment) {
+        if (segment.length() == 0 || !Character.isJavaIdentifierStart(segment.charAt(0))
+            || RESERVED_WORDS.contains(segment)) {
+            return false;
+        }
+        for (int i = 1; i < segment.length(); i++) {
+            if (!Character.isJavaIdentifierPart(segment.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLiteralIndex(String segment) {
+        if (segment.length() < 3 || segment.charAt(0) != '[' || segment.charAt(segment.length() - 1) != ']') {
+            return false;
+        }
+        final String literal = segment.substring(1, segment.length() - 1).trim();
+        if (literal.length() == 0) {
+            return false;
+        }
+        final char quote = literal.charAt(0);
+        if (quote == '\'' || quote == '"') {
+            return literal.length() >= 2 && literal.charAt(literal.length() - 1) == quote
+                && literal.indexOf('\\') < 0 && literal.indexOf(quote, 1) == literal.length() - 1;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (!Character.isDigit(literal.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+/**
+ * Immutable, identity-hashed table of context objects keyed by {@link Class}, suitable for copy-on-write publication
+ * via a volatile reference. Lookups probe an open-addressed array at most half full; {@code null} values are
+ * permitted, and are distinguished from absent keys.
+ */
+final class ContextObjectTable {
+    /**
+     * Returned by {@link #get(Class)} for an absent key.
+     */
+    static final Object ABSENT = new Object();
+
+    /**
+     * Empty table.
+     */
+    static final ContextObjectTable EMPTY = new ContextObjectTable(new Class<?>[0], new Object[0], 0);
+
+    private static final int MINIMUM_CAPACITY = 4;
+
+    private final Class<?>[] keys;
+    private final Object[] values;
+    private final int size;
+
+    private ContextObjectTable(Class<?>[] keys, Object[] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Get the value stored for {@code key}.
+     * 
+     * @param key
+     * @return Object, possibly {@code null}, or {@link #ABSENT}
+     */
+    Object get(Class<?> key) {
+        if (size == 0) {
+            return ABSENT;
+        }
+        final int mask = keys.length - 1;
+        for (int i = indexOf(key, mask);; i = (i + 1) & mask) {
+            final Class<?> k = keys[i];
+            if (k == key) {
+                return values[i];
+            }
+            if (k == null) {
+                return ABSENT;
+            }
+        }
+    }
+
+    /**
+     * Get a table having the contents of this one plus the specified mapping.
+     * 
+     * @param key
+     * @param value
+     * @return ContextObjectTable
+     */
+    ContextObjectTable with(Class<?> key, Object value) {
+        final boolean present = get(key) != ABSENT;
+        final int newSize = present ? size : size + 1;
+        final Class<?>[] newKeys;
+        final Object[] newValues;
+
+        if (newSize * 2 > keys.length) {
+            final int capacity = Math.max(MINIMUM_CAPACITY, keys.length * 2);
+            newKeys = new Class<?>[capacity];
+            newValues = new Object[capacity];
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != null) {
+                    put(newKeys, newValues, keys[i], values[i]);
+                }
+            }
+        } else {
+            newKeys = keys.clone();
+            newValues = values.clone();
+        }
+        put(newKeys, newValues, key, value);
+        return new ContextObjectTable(newKeys, newValues, newSize);
+    }
+
+    /**
+     * Get a table having the contents of this one overlaid by those of {@code upper}.
+     *
+     * @param upper
+     * @return ContextObjectTable
+     */
+    ContextObjectTable overlay(ContextObjectTable upper) {
+        if (upper.size == 0) {
+            return this;
+        }
+        if (size == 0) {
+            return upper;
+        }
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < (size + upper.size) * 2) {
+            capacity *= 2;
+        }
+        final Class<?>[] newKeys = new Class<?>[capacity];
+        final Object[] newValues = new Object[capacity];
+        int newSize = 0;
+        for (ContextObjectTable table : new ContextObjectTable[] { this, upper }) {
+            for (int i = 0; i < table.keys.length; i++) {
+                if (table.keys[i] != null && put(newKeys, newValues, table.keys[i], table.values[i])) {
+                    newSize++;
+                }
+            }
+        }
+        return new ContextObjectTable(newKeys, newValues, newSize);
+    }
+
+    /**
+     * Store a mapping.
+     *
+     * @return whether {@code key} was newly added
+     */
+    private static boolean put(Class<?>[] keys, Object[] values, Class<?> key, Object value) {
+        final int mask = keys.length - 1;
+        int i = indexOf(key, mask);
+        while (keys[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        final boolean result = keys[i] == null;
+        keys[i] = key;
+        values[i] = value;
+        return result;
+    }
+
+    private static int indexOf(Class<?> key, int mask) {
+        final int h = System.identityHashCode(key);
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Thread-safe index from (base, property) pairs to the keys (e.g. bound expressions) whose {@link DependencySet}s
+ * contain them, such that only those keys invalidated by a given change need be re-evaluated. Bases are held strongly
+ * and compared by identity; keys should be {@link #remove(Object) removed} when no longer of interest.
+ * 
+ * @param <K>
+ *            key type
+ */
+public class DependencyIndex<K> {
+    private final Map<Object, Map<Object, Set<K>>> dependents = new IdentityHashMap<Object, Map<Object, Set<K>>>();
+    private final Map<K, DependencySet> dependencies = new HashMap<K, DependencySet>();
+
+    /**
+     * Register the dependencies of {@code key}, replacing any previously registered.
+     * 
+     * @param key
+     * @param dependencySet
+     */
+    public synchronized void put(K key, DependencySet dependencySet) {
+        Validate.notNull(key, "key");
+        Validate.notNull(dependencySet, "dependencySet");
+        remove(key);
+        dependencies.put(key, dependencySet);
+        for (int i = 0; i < dependencySet.size(); i++) {
+            final Object base = dependencySet.getBase(i);
+            Map<Object, Set<K>> byProperty = dependents.get(base);
+            if (byProperty == null) {
+                byProperty = new HashMap<Object, Set<K>>();
+                dependents.put(base, byProperty);
+            }
+            final Object property = dependencySet.getProperty(i);
+            Set<K> keys = byProperty.get(property);
+            if (keys == null) {
+                keys = new HashSet<K>();
+                byProperty.put(property, keys);
+            }
+            keys.add(key);
+        }
+    }
+
+    /**
+     * Unregister {@code key}.
+     * 
+     * @param key
+     * @return the previously registered DependencySet, or {@code null}
+     */
+    public synchronized DependencySet remove(Object key) {
+        final DependencySet result = dependencies.remove(key);
+        if (result != null) {
+            for (int i = 0; i < result.size(); i++) {
+                final Object base = result.getBase(i);
+                final Map<Object, Set<K>> byProperty = dependents.get(base);
+                final Set<K> keys = byProperty.get(result.getProperty(i));
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    byProperty.remove(result.getProperty(i));
+                    if (byProperty.isEmpty()) {
+                        dependents.remove(base);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the dependencies registered for {@code key}.
+     * 
+     * @param key
+     * @return DependencySet or {@code null}
+     */
+    public synchronized DependencySet getDependencies(Object key) {
+        return dependencies.get(key);
+    }
+
+    /**
+     * Get the keys that read {@code property} of {@code base}.
+     * 
+     * @param base
+     *            {@code null} for a top-level identifier
+     * @param property
+     * @return Set of K, snapshot
+     */
+    public synchronized Set<K> getDependents(Object base, Object property) {
+        final Map<Object, Set<K>> byProperty = dependents.get(base);
+        if (byProperty != null) {
+            final Set<K> keys = byProperty.get(DependencySet.normalize(property));
+            if (keys != null) {
+                return new HashSet<K>(keys);
+            }
+        }
+        return Collections.emptySet();
+    }
+
+    /**
+     * Get the keys that read any property of {@code base}.
+     * 
+     * @param base
+     * @return Set of K, snapshot
+     */
+    public synchronized Set<K> getDependents(Object base) {
+        final Map<Object, Set<K>> byProperty = dependents.get(base);
+        if (byProperty == null) {
+            return Collections.emptySet();
+        }
+        final Set<K> result = new HashSet<K>();
+        for (Set<K> keys : byProperty.values()) {
+            result.addAll(keys);
+        }
+        return result;
+    }
+
+    /**
+     * Get the number of registered keys.
+     * 
+     * @return int
+     */
+    public synchronized int size() {
+        return dependencies.size();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.util.Arrays;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Immutable set of (base, property) reads recorded by {@link DependencyTrackingELResolver}. Bases are compared by
+ * identity, properties by equality; integral {@link Number} properties are normalized to {@link Long}, as EL presents
+ * integer literals, so that e.g. a read of {@code list[0]} matches a change to index {@code 0} however expressed. A
+ * {@code null} base denotes a top-level identifier.
+ */
+public final class DependencySet {
+    /**
+     * Empty set.
+     */
+    public static final DependencySet EMPTY = new DependencySet(new Object[0], new Object[0]);
+
+    private final Object[] bases;
+    private final Object[] properties;
+
+    DependencySet(Object[] bases, Object[] properties) {
+        this.bases = bases;
+        this.properties = properties;
+    }
+
+    /**
+     * Get the number of dependencies.
+     * 
+     * @return int
+     */
+    public int size() {
+        return bases.length;
+    }
+
+    /**
+     * Get the base object of the dependency at {@code index}.
+     * 
+     * @param index
+     * @return Object, {@code null} for a top-level identifier
+     */
+    public Object getBase(int index) {
+        return bases[index];
+    }
+
+    /**
+     * Get the property of the dependency at {@code index}.
+     * 
+     * @param index
+     * @return Object
+     */
+    public Object getProperty(int index) {
+        return properties[index];
+    }
+
+    /**
+     * Learn whether {@code property} of {@code base} was read.
+     * 
+     * @param base
+     * @param property
+     * @return boolean
+     */
+    public boolean contains(Object base, Object property) {
+        final Object p = normalize(property);
+        for (int i = 0; i < bases.length; i++) {
+            if (bases[i] == base && properties[i].equals(p)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Learn whether any property of {@code base} was read.
+     * 
+     * @param base
+     * @return boolean
+     */
+    public boolean dependsOn(Object base) {
+        for (Object b : bases) {
+            if (b == base) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buf = new StringBuilder("[");
+        for (int i = 0; i < bases.length; i++) {
+            if (i > 0) {
+                buf.append(", ");
+            }
+            buf.append(bases[i] == null ? "" : bases[i].getClass().getSimpleName() + '@'
+                + Integer.toHexString(System.identityHashCode(bases[i])) + '.').append(properties[i]);
+        }
+        return buf.append(']').toString();
+    }
+
+    /**
+     * Normalize a property for comparison.
+     * 
+     * @param property
+     * @return Object
+     */
+    static Object normalize(Object property) {
+        Validate.notNull(property, "property");
+        if (property instanceof Integer || property instanceof Short || property instanceof Byte) {
+            return Long.valueOf(((Number) property).longValue());
+        }
+        return property;
+    }
+
+    /**
+     * Accumulates distinct dependencies.
+     */
+    static class Builder {
+        private Object[] bases = new Object[8];
+        private Object[] properties = new Object[8];
+        private int size;
+
+        void add(Object base, Object property) {
+            final Object p = normalize(property);
+            // expressions read few properties, so a linear scan beats hashing:
+            for (int i = size - 1; i >= 0; i--) {
+                if (bases[i] == base && properties[i].equals(p)) {
+                    return;
+                }
+            }
+            if (size == bases.length) {
+                bases = Arrays.copyOf(bases, size * 2);
+                properties = Arrays.copyOf(properties, size * 2);
+            }
+            bases[size] = base;
+            properties[size++] = p;
+        }
+
+        DependencySet build() {
+            return size == 0 ? EMPTY : new DependencySet(Arrays.copyOf(bases, size), Arrays.copyOf(properties, size));
+        }
+    }
+}
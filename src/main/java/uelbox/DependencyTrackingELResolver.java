@@ -0,0 +1,114 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.ValueExpression;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * {@link ELResolverWrapper} that records the (base, property) pairs successfully read by
+ * {@link #getValue(ELContext, Object, Object)}, and the (base, method name) pairs successfully invoked by
+ * {@link #invoke(ELContext, Object, Object, Class[], Object[])}, during an
+ * {@link #evaluate(ELContext, ValueExpression) evaluation}, yielding the {@link DependencySet} of the evaluated
+ * expression. Combined with a {@link DependencyIndex}, this permits
+ * a change to some property of some object to be mapped to the expressions that must be re-evaluated. Reads performed
+ * outside of {@link #evaluate(ELContext, ValueExpression)} are passed through untracked.
+ */
+public class DependencyTrackingELResolver extends ELResolverWrapper {
+    /**
+     * Value and dependencies of an evaluation.
+     */
+    public static final class Result {
+        private final Object value;
+        private final DependencySet dependencies;
+
+        Result(Object value, DependencySet dependencies) {
+            this.value = value;
+            this.dependencies = dependencies;
+        }
+
+        /**
+         * Get the value.
+         * 
+         * @return Object
+         */
+        public Object getValue() {
+            return value;
+        }
+
+        /**
+         * Get the dependencies.
+         * 
+         * @return DependencySet
+         */
+        public DependencySet getDependencies() {
+            return dependencies;
+        }
+    }
+
+    /**
+     * Create a new DependencyTrackingELResolver.
+     * 
+     * @param wrapped
+     */
+    public DependencyTrackingELResolver(ELResolver wrapped) {
+        super(wrapped);
+    }
+
+    @Override
+    public Object getValue(ELContext context, Object base, Object property) {
+        final Object result = super.getValue(context, base, property);
+        record(context, base, property);
+        return result;
+    }
+
+    @Override
+    public Object invoke(ELContext context, Object base, Object method, Class<?>[] paramTypes, Object[] params) {
+        final Object result = super.invoke(context, base, method, paramTypes, params);
+        record(context, base, method);
+        return result;
+    }
+
+    private void record(ELContext context, Object base, Object property) {
+        if (property != null && context.isPropertyResolved()) {
+            final EvaluationContext evaluation = EvaluationContext.of(context, this);
+            if (evaluation != null) {
+                ((DependencySet.Builder) evaluation.state).add(base, property);
+            }
+        }
+    }
+
+    /**
+     * Evaluate {@code valueExpression} against {@code context}, whose {@link ELResolver} is bypassed in favor of this
+     * instance, recording its dependencies. Thread-safe: dependencies are recorded against an evaluation-scoped
+     * {@link ELContext} wrapping {@code context}.
+     * 
+     * @param context
+     * @param valueExpression
+     * @return Result
+     */
+    public Result evaluate(ELContext context, ValueExpression valueExpression) {
+        Validate.notNull(valueExpression, "valueExpression");
+        final DependencySet.Builder dependencies = new DependencySet.Builder();
+        final EvaluationContext evaluation = new EvaluationContext(context, this);
+        evaluation.state = dependencies;
+        final Object value = valueExpression.getValue(evaluation);
+        return new Result(value, dependencies.build());
+    }
+}
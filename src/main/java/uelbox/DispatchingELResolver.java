@@ -0,0 +1,303 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.beans.FeatureDescriptor;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Composite {@link ELResolver} that learns, per base object class, which of its delegates resolves a property and
+ * thereafter consults that delegate first, falling back to the full chain, in order, on a miss; should an earlier
+ * delegate then resolve a property of the same class, the route moves to it. Compared to a
+ * {@link javax.el.CompositeELResolver} this spares e.g. a bean property lookup the misses of all the
+ * collection-oriented resolvers preceding {@link javax.el.BeanELResolver}. As delegates preceding a learned route are
+ * skipped, a route is only learned if each of them declares, by returning {@code null} from
+ * {@link ELResolver#getCommonPropertyType(ELContext, Object)}, that it does not handle the base object at hand, as do
+ * all the standard resolvers for base objects of types other than their own; should any of them claim it, the class is
+ * always resolved by the full chain. {@code null} base objects and method invocations are always resolved by the full
+ * chain. Routes learned for classes of foreign class loaders are held weakly, so as not to prevent their collection.
+ */
+public class DispatchingELResolver extends ELResolver {
+    /**
+     * Upper bound on the number of learned routes, so that an unbounded variety of base classes cannot grow this
+     * resolver without limit; classes encountered beyond this bound are simply resolved by the full chain.
+     */
+    private static final int MAX_ROUTES = 1024;
+
+    /**
+     * Route of a class that some delegate might handle by property rather than by type, and which must therefore
+     * always be resolved by the full chain.
+     */
+    private static final int UNROUTABLE = -2;
+
+    /**
+     * Delegates together with the routes learned for them, replaced as a unit whenever a delegate is added.
+     */
+    private static class Chain {
+        final ELResolver[] resolvers;
+        final ClassMap<Integer> routes = new ClassMap<Integer>();
+
+        Chain(ELResolver[] resolvers) {
+            this.resolvers = resolvers;
+        }
+
+        /**
+         * Get the route learned for {@code base}.
+         * 
+         * @return index of a delegate, or a negative value
+         */
+        int routeOf(Object base) {
+            if (base == null) {
+                return -1;
+            }
+            final Integer result = routes.get(base.getClass());
+            return result == null ? -1 : result.intValue();
+        }
+
+        /**
+         * Record that the delegate at {@code index} resolved a property of {@code base}. A route only ever moves
+         * toward the head of the chain, so that a delegate which has resolved some property of a given class is never
+         * skipped in favor of one that follows it.
+         */
+        void learn(ELContext context, Object base, int index, int route) {
+            if (base == null || route == UNROUTABLE || route >= 0 && route < index) {
+                return;
+            }
+            if (route < 0 && routes.size() >= MAX_ROUTES) {
+                return;
+            }
+            int learned = index;
+            for (int i = 0; i < index; i++) {
+                if (resolvers[i].getCommonPropertyType(context, base) != null) {
+                    learned = UNROUTABLE;
+                    break;
+                }
+            }
+            routes.put(base.getClass(), Integer.valueOf(learned));
+        }
+    }
+
+    private volatile Chain chain;
+
+    /**
+     * Create a new DispatchingELResolver.
+     * 
+     * @param resolvers
+     *            initial delegates, in order
+     */
+    public DispatchingELResolver(ELResolver... resolvers) {
+        Validate.noNullElements(resolvers, "null resolver at index %s");
+        chain = new Chain(resolvers.clone());
+    }
+
+    /**
+     * Create a new DispatchingELResolver having the delegates of, and sharing the routes learned by,
+     * {@code prototype}, until either is modified.
+     * 
+     * @param prototype
+     */
+    DispatchingELResolver(DispatchingELResolver prototype) {
+        chain = prototype.chain;
+    }
+
+    /**
+     * Add a delegate to the end of the chain, discarding any learned routes.
+     * 
+     * @param resolver
+     */
+    public synchronized void add(ELResolver resolver) {
+        Validate.notNull(resolver, "resolver");
+        chain = new Chain(ArrayUtils.add(chain.resolvers, resolver));
+    }
+
+    @Override
+    public Object getValue(ELContext context, Object base, Object property) {
+        context.setPropertyResolved(false);
+        final Chain c = chain;
+        final int route = c.routeOf(base);
+        if (route >= 0) {
+            final Object result = c.resolvers[route].getValue(context, base, property);
+            if (context.isPropertyResolved()) {
+                return result;
+            }
+        }
+        for (int i = 0; i < c.resolvers.length; i++) {
+            if (i != route) {
+                final Object result = c.resolvers[i].getValue(context, base, property);
+                if (context.isPropertyResolved()) {
+                    c.learn(context, base, i, route);
+                    return result;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Class<?> getType(ELContext context, Object base, Object property) {
+        context.setPropertyResolved(false);
+        final Chain c = chain;
+        final int route = c.routeOf(base);
+        if (route >= 0) {
+            final Class<?> result = c.resolvers[route].getType(context, base, property);
+            if (context.isPropertyResolved()) {
+                return result;
+            }
+        }
+        for (int i = 0; i < c.resolvers.length; i++) {
+            if (i != route) {
+                final Class<?> result = c.resolvers[i].getType(context, base, property);
+                if (context.isPropertyResolved()) {
+                    c.learn(context, base, i, route);
+                    return result;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void setValue(ELContext context, Object base, Object property, Object value) {
+        context.setPropertyResolved(false);
+        final Chain c = chain;
+        final int route = c.routeOf(base);
+        if (route >= 0) {
+            c.resolvers[route].setValue(context, base, property, value);
+            if (context.isPropertyResolved()) {
+                return;
+            }
+        }
+        for (int i = 0; i < c.resolvers.length; i++) {
+            if (i != route) {
+                c.resolvers[i].setValue(context, base, property, value);
+                if (context.isPropertyResolved()) {
+                    c.learn(context, base, i, route);
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isReadOnly(ELContext context, Object base, Object property) {
+        context.setPropertyResolved(false);
+        final Chain c = chain;
+        final int route = c.routeOf(base);
+        if (route >= 0) {
+            final boolean result = c.resolvers[route].isReadOnly(context, base, property);
+            if (context.isPropertyResolved()) {
+                return result;
+            }
+        }
+        for (int i = 0; i < c.resolvers.length; i++) {
+            if (i != route) {
+                final boolean result = c.resolvers[i].isReadOnly(context, base, property);
+                if (context.isPropertyResolved()) {
+                    c.learn(context, base, i, route);
+                    return result;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Object invoke(ELContext context, Object base, Object method, Class<?>[] paramTypes, Object[] params) {
+        context.setPropertyResolved(false);
+        for (ELResolver resolver : chain.resolvers) {
+            final Object result = resolver.invoke(context, base, method, paramTypes, params);
+            if (context.isPropertyResolved()) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Iterator<FeatureDescriptor> getFeatureDescriptors(final ELContext context, final Object base) {
+        final ELResolver[] resolvers = chain.resolvers;
+        return new Iterator<FeatureDescriptor>() {
+            private int index;
+            private Iterator<FeatureDescriptor> current = Collections.<FeatureDescriptor> emptyList().iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext()) {
+                    if (index == resolvers.length) {
+                        return false;
+                    }
+                    final Iterator<FeatureDescriptor> next = resolvers[index++].getFeatureDescriptors(context, base);
+                    if (next != null) {
+                        current = next;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public FeatureDescriptor next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public Class<?> getCommonPropertyType(ELContext context, Object base) {
+        for (ELResolver resolver : chain.resolvers) {
+            final Class<?> result = resolver.getCommonPropertyType(context, base);
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the current delegates of this resolver, without copying.
+     * 
+     * @return ELResolver[], not to be modified
+     */
+    ELResolver[] resolvers() {
+        return chain.resolvers;
+    }
+
+    /**
+     * Get the delegates of this resolver.
+     * 
+     * @return unmodifiable List of ELResolver
+     */
+    public List<ELResolver> getResolvers() {
+        return Collections.unmodifiableList(Arrays.asList(chain.resolvers));
+    }
+}
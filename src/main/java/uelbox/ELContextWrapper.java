@@ -15,9 +15,13 @@
  */
 package uelbox;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import javax.el.ELContext;
 import javax.el.ELResolver;
@@ -28,17 +32,132 @@ import javax.el.VariableMapper;
 import org.apache.commons.lang3.Validate;
 
 /**
- * ELContext wrapper which wraps the ELResolver and may shadow variables, locale settings, and context objects.
+ * ELContext wrapper which wraps the ELResolver and may shadow variables, locale settings, and context objects. Context
+ * object and variable lookups are served from a view that flattens all directly nested ELContextWrappers, such that
+ * their cost does not grow with the depth of the wrapper chain. A version counter shared along the chain invalidates
+ * such views upon any modification, whereupon only the modified wrapper and those wrapping it rebuild their part of
+ * the view, copying no more than their own variables; a nested ELContextWrapper that overrides
+ * {@link #getContext(Class)} or {@link #getVariableMapper()} is consulted directly rather than flattened.
  */
 public abstract class ELContextWrapper extends ELContext {
-    private final ELResolver elResolver;
-    private final VariableMapper variableMapper;
+    /**
+     * Immutable contents of a single flattened layer as of a given modification count: its own context objects and
+     * variables, those of all flattened layers beneath it, and the innermost (unflattened) {@link ELContext}. The
+     * combined contents are computed only should a wrapping layer require them.
+     */
+    private static class Layer {
+        final long modifications;
+        final Layer lower;
+        final ELContext base;
+        final ContextObjectTable contextObjects;
+        final Map<String, ValueExpression> variables;
+        final ContextObjectTable lowerContextObjects;
+        final Map<String, ValueExpression> lowerVariables;
+        private volatile ContextObjectTable allContextObjects;
+        private volatile Map<String, ValueExpression> allVariables;
+
+        Layer(long modifications, Layer lower, ELContext base, ContextObjectTable contextObjects,
+            Map<String, ValueExpression> variables) {
+            this.modifications = modifications;
+            this.lower = lower;
+            this.base = base;
+            this.contextObjects = contextObjects;
+            this.variables = variables;
+            this.lowerContextObjects = lower == null ? ContextObjectTable.EMPTY : lower.getAllContextObjects();
+            this.lowerVariables =
+                lower == null ? Collections.<String, ValueExpression> emptyMap() : lower.getAllVariables();
+        }
+
+        ContextObjectTable getAllContextObjects() {
+            ContextObjectTable result = allContextObjects;
+            if (result == null) {
+                result = lowerContextObjects.overlay(contextObjects);
+                allContextObjects = result;
+            }
+            return result;
+        }
+
+        Map<String, ValueExpression> getAllVariables() {
+            Map<String, ValueExpression> result = allVariables;
+            if (result == null) {
+                result = overlay(lowerVariables, variables);
+                allVariables = result;
+            }
+            return result;
+        }
+
+        Object getContext(Class<?> key) {
+            final Object result = contextObjects.get(key);
+            if (result != ContextObjectTable.ABSENT) {
+                return result;
+            }
+            final Object lowerResult = lowerContextObjects.get(key);
+            return lowerResult == ContextObjectTable.ABSENT ? base.getContext(key) : lowerResult;
+        }
+
+        ValueExpression resolveVariable(String variable) {
+            ValueExpression result = variables.get(variable);
+            if (result != null || variables.containsKey(variable)) {
+                return result;
+            }
+            result = lowerVariables.get(variable);
+            if (result != null || lowerVariables.containsKey(variable)) {
+                return result;
+            }
+            return base.getVariableMapper().resolveVariable(variable);
+        }
+    }
 
     /**
-     * Map in which context objects are potentially stored so that we can remove them if desired.
+     * A {@link Layer} together with the chain version as of which it is current.
+     */
+    private static class View {
+        final AtomicLong chain;
+        final long version;
+        final Layer layer;
+
+        View(AtomicLong chain, long version, Layer layer) {
+            this.chain = chain;
+            this.version = version;
+            this.layer = layer;
+        }
+
+        boolean isCurrent() {
+            return chain.get() == version;
+        }
+    }
+
+    /**
+     * Records, per ELContextWrapper subclass, whether instances can be flattened.
+     */
+    private static final Map<Class<?>, Boolean> FLATTENABLE = new WeakHashMap<Class<?>, Boolean>();
+
+    private ELResolver elResolver;
+    private ELResolver wrappedELResolver;
+    private final SimpleVariableMapper variableMapper;
+
+    /**
+     * Chain version, shared with flattened wrapped ELContextWrappers once a {@link View} has been created.
+     */
+    private volatile AtomicLong chain = new AtomicLong();
+
+    /**
+     * Count of modifications of this instance's own variables and context objects, by which an unmodified
+     * {@link Layer} is recognized and reused.
+     */
+    private final AtomicLong modifications = new AtomicLong();
+    private volatile View view;
+    private volatile Boolean flattenable;
+
+    private static final AtomicReferenceFieldUpdater<ELContextWrapper, ContextObjectTable> CONTEXT_OBJECTS =
+        AtomicReferenceFieldUpdater.newUpdater(ELContextWrapper.class, ContextObjectTable.class, "contextObjects");
+
+    /**
+     * Copy-on-write table in which context objects are potentially stored so that we can remove them if desired. Reads
+     * never block, and updates are made by compare-and-set.
      * @see #removeContext(Class)
      */
-    private Map<Class<?>, Object> contextObjects;
+    private volatile ContextObjectTable contextObjects = ContextObjectTable.EMPTY;
 
     protected final ELContext wrapped;
 
@@ -49,18 +168,60 @@ public abstract class ELContextWrapper extends ELContext {
      */
     protected ELContextWrapper(ELContext wrapped) {
         this.wrapped = Validate.notNull(wrapped, "wrapped ELContext");
-        this.elResolver = Validate.notNull(wrap(wrapped.getELResolver()));
+        this.wrappedELResolver = wrapped.getELResolver();
+        this.elResolver = Validate.notNull(wrap(wrappedELResolver));
         this.variableMapper = new SimpleVariableMapper() {
             @Override
             public ValueExpression resolveVariable(String variable) {
-                if (containsVariable(variable)) {
-                    return super.resolveVariable(variable);
+                return view().layer.resolveVariable(variable);
+            }
+
+            @Override
+            public ValueExpression setVariable(String variable, ValueExpression expression) {
+                try {
+                    return super.setVariable(variable, expression);
+                } finally {
+                    modified();
                 }
-                return ELContextWrapper.this.wrapped.getVariableMapper().resolveVariable(variable);
             }
         };
     }
 
+    /**
+     * Discard any variables, context objects, locale, and resolution status set against this ELContextWrapper, so that
+     * the instance may be recycled. Does not consult the wrapped {@link ELContext}.
+     * 
+     * @see ELContextWrapperPool
+     */
+    void recycle() {
+        variableMapper.clear();
+        contextObjects = ContextObjectTable.EMPTY;
+        modifications.incrementAndGet();
+        setLocale(null);
+        setPropertyResolved(false);
+
+        // detach from the previous chain, invalidating the views of any wrappers of this instance:
+        final AtomicLong previousChain = chain;
+        chain = new AtomicLong();
+        view = null;
+        previousChain.incrementAndGet();
+    }
+
+    /**
+     * Prepare a recycled instance for use once the wrapped {@link ELContext} has been rebound. The wrapped
+     * {@link ELResolver} is retained if the wrapped {@link ELContext} still uses the same {@link ELResolver}; otherwise
+     * {@link #wrap(ELResolver)} is invoked anew.
+     * 
+     * @see ELContextWrapperPool
+     */
+    void rebind() {
+        final ELResolver resolver = wrapped.getELResolver();
+        if (resolver != wrappedELResolver) {
+            elResolver = Validate.notNull(wrap(resolver));
+            wrappedELResolver = resolver;
+        }
+    }
+
     /**
      * Create a wrapped ELResolver for use with the wrapped {@link ELContext}.
      * 
@@ -93,10 +254,7 @@ public abstract class ELContextWrapper extends ELContext {
 
     @Override
     public Object getContext(@SuppressWarnings("rawtypes") Class key) {
-        if (contextObjects != null && contextObjects.containsKey(key)) {
-            return contextObjects.get(key);
-        }
-        return wrapped.getContext(key);
+        return view().layer.getContext(key);
     }
 
     @Override
@@ -117,12 +275,108 @@ public abstract class ELContextWrapper extends ELContext {
         return result == null ? wrapped.getContext(key) : result;
     }
 
-    private synchronized Object putContextInternal(Class<?> key, Object value) {
+    private Object putContextInternal(Class<?> key, Object value) {
         Validate.notNull(key, "context key must not be null");
-        if (contextObjects == null) {
-            contextObjects = new HashMap<Class<?>, Object>();
+        while (true) {
+            final ContextObjectTable current = contextObjects;
+            if (CONTEXT_OBJECTS.compareAndSet(this, current, current.with(key, value))) {
+                modified();
+                final Object result = current.get(key);
+                return result == ContextObjectTable.ABSENT ? null : result;
+            }
+        }
+    }
+
+    /**
+     * Record a modification of this instance's own variables or context objects, invalidating the views of the
+     * chain. The modification count must be bumped first, so that a view built as of the new chain version sees it.
+     */
+    private void modified() {
+        modifications.incrementAndGet();
+        chain.incrementAndGet();
+    }
+
+    private View view() {
+        final View current = view;
+        if (current != null && current.isCurrent()) {
+            return current;
+        }
+        final View result = createView(current);
+        view = result;
+        return result;
+    }
+
+    private View createView(View previous) {
+        final AtomicLong c;
+        final long version;
+        final Layer lower;
+        final ELContext base;
+        if (wrapped instanceof ELContextWrapper && ((ELContextWrapper) wrapped).isFlattenable()) {
+            final View lowerView = ((ELContextWrapper) wrapped).view();
+            final AtomicLong previousChain = chain;
+            if (previousChain != lowerView.chain) {
+                // adopt the wrapped chain; a modification racing with the switch may have bumped the previous chain,
+                // so invalidate the view under construction and let the next lookup rebuild it:
+                chain = lowerView.chain;
+                lowerView.chain.incrementAndGet();
+            }
+            c = lowerView.chain;
+            version = lowerView.version;
+            lower = lowerView.layer;
+            base = lower.base;
+        } else {
+            c = chain;
+            version = c.get();
+            lower = null;
+            base = wrapped;
+        }
+        final long count = modifications.get();
+        final Layer previousLayer = previous == null ? null : previous.layer;
+        if (previousLayer != null && previousLayer.modifications == count && previousLayer.lower == lower
+            && previousLayer.base == base) {
+            // neither this instance nor any layer beneath it has changed; reuse its contents as of the new version:
+            return new View(c, version, previousLayer);
+        }
+        return new View(c, version, new Layer(count, lower, base, contextObjects,
+            overlay(Collections.<String, ValueExpression> emptyMap(), variableMapper.asMap())));
+    }
+
+    private boolean isFlattenable() {
+        Boolean result = flattenable;
+        if (result == null) {
+            final Class<?> type = getClass();
+            synchronized (FLATTENABLE) {
+                result = FLATTENABLE.get(type);
+            }
+            if (result == null) {
+                result =
+                    Boolean.valueOf(isInherited(type, "getContext", Class.class)
+                        && isInherited(type, "getVariableMapper"));
+                synchronized (FLATTENABLE) {
+                    FLATTENABLE.put(type, result);
+                }
+            }
+            flattenable = result;
+        }
+        return result.booleanValue();
+    }
+
+    private static boolean isInherited(Class<?> type, String methodName, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(methodName, parameterTypes).getDeclaringClass() == ELContextWrapper.class;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, ValueExpression> overlay(Map<String, ValueExpression> lower,
+        Map<String, ValueExpression> upper) {
+        if (upper.isEmpty()) {
+            return lower;
         }
-        return contextObjects.put(key, value);
+        final Map<String, ValueExpression> result = new HashMap<String, ValueExpression>(lower);
+        result.putAll(upper);
+        return result;
     }
 
     /**
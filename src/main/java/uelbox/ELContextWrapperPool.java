@@ -0,0 +1,158 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.FunctionMapper;
+import javax.el.VariableMapper;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Bounded pool of {@link ELContextWrapper}s. Instances are created to wrap a pool-owned {@link ELContext} that
+ * forwards to the context passed to {@link #acquire(ELContext)}, and which is rebound when an idle instance is
+ * reacquired. Upon release an instance discards its variables and context objects, and the {@link ELContext} it
+ * wrapped, so that idle instances retain no data of their last use. Thread-safe; the instances themselves of course
+ * are not, and must not be used after having been released.
+ * 
+ * @param <T>
+ */
+public abstract class ELContextWrapperPool<T extends ELContextWrapper> {
+    /**
+     * Rebindable {@link ELContext} wrapped by the instances of a given pool, tracking whether its instance is in use.
+     */
+    private static class PooledContext extends ELContext {
+        final ELContextWrapperPool<?> pool;
+        final AtomicBoolean inUse = new AtomicBoolean(true);
+        volatile ELContext target;
+
+        PooledContext(ELContextWrapperPool<?> pool, ELContext target) {
+            this.pool = pool;
+            this.target = target;
+        }
+
+        @Override
+        public ELResolver getELResolver() {
+            return target.getELResolver();
+        }
+
+        @Override
+        public FunctionMapper getFunctionMapper() {
+            return target.getFunctionMapper();
+        }
+
+        @Override
+        public VariableMapper getVariableMapper() {
+            return target.getVariableMapper();
+        }
+
+        @Override
+        public Object getContext(@SuppressWarnings("rawtypes") Class key) {
+            return target.getContext(key);
+        }
+
+        @Override
+        public void putContext(@SuppressWarnings("rawtypes") Class key, Object contextObject) {
+            target.putContext(key, contextObject);
+        }
+
+        @Override
+        public Locale getLocale() {
+            return target.getLocale();
+        }
+
+        @Override
+        public void setLocale(Locale locale) {
+            target.setLocale(locale);
+        }
+    }
+
+    private final BlockingQueue<T> idle;
+
+    /**
+     * Create a new ELContextWrapperPool.
+     * 
+     * @param capacity
+     *            maximum number of idle instances retained
+     */
+    protected ELContextWrapperPool(int capacity) {
+        Validate.isTrue(capacity > 0, "capacity must be > 0");
+        idle = new ArrayBlockingQueue<T>(capacity);
+    }
+
+    /**
+     * Get an instance wrapping {@code wrapped}, recycling an idle instance if available.
+     * 
+     * @param wrapped
+     * @return T
+     */
+    public T acquire(ELContext wrapped) {
+        Validate.notNull(wrapped, "wrapped ELContext");
+        final T result = idle.poll();
+        if (result == null) {
+            final PooledContext pooledContext = new PooledContext(this, wrapped);
+            final T created = Validate.notNull(create(pooledContext), "created ELContextWrapper");
+            Validate.isTrue(created.wrapped == pooledContext, "created ELContextWrapper must wrap %s", pooledContext);
+            return created;
+        }
+        final PooledContext pooledContext = (PooledContext) result.wrapped;
+        pooledContext.target = wrapped;
+        pooledContext.inUse.set(true);
+        result.rebind();
+        return result;
+    }
+
+    /**
+     * Return an instance acquired from this pool. Instances in excess of capacity are discarded.
+     * 
+     * @param wrapper
+     * @throws IllegalArgumentException if {@code wrapper} was not acquired from this pool
+     * @throws IllegalStateException if {@code wrapper} has already been released
+     */
+    public void release(T wrapper) {
+        Validate.notNull(wrapper, "wrapper");
+        Validate.isTrue(wrapper.wrapped instanceof PooledContext && ((PooledContext) wrapper.wrapped).pool == this,
+            "%s was not acquired from this pool", wrapper);
+        final PooledContext pooledContext = (PooledContext) wrapper.wrapped;
+        Validate.validState(pooledContext.inUse.compareAndSet(true, false), "%s has already been released", wrapper);
+        wrapper.recycle();
+        pooledContext.target = null;
+        idle.offer(wrapper);
+    }
+
+    /**
+     * Get the number of idle instances currently held.
+     * 
+     * @return int
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Create a new instance wrapping {@code wrapped}.
+     * 
+     * @param wrapped
+     * @return T
+     */
+    protected abstract T create(ELContext wrapped);
+}
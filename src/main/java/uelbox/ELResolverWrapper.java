@@ -57,6 +57,11 @@ public class ELResolverWrapper extends ELResolver {
         return wrapped.getValue(context, base, property);
     }
 
+    @Override
+    public Object invoke(ELContext context, Object base, Object method, Class<?>[] paramTypes, Object[] params) {
+        return wrapped.invoke(context, base, method, paramTypes, params);
+    }
+
     @Override
     public boolean isReadOnly(ELContext context, Object base, Object property) {
         return wrapped.isReadOnly(context, base, property);
@@ -0,0 +1,85 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+
+/**
+ * Evaluation-scoped {@link ELContext} by which an {@link ELResolver} evaluates expressions against a wrapped context
+ * whose own {@link ELResolver} is bypassed in its favor, holding whatever state that resolver keeps for the
+ * evaluation. Because the state lives here rather than in the wrapped context, concurrent evaluations against a shared
+ * context do not interfere.
+ */
+final class EvaluationContext extends ELContextWrapper {
+    final ELResolver resolver;
+
+    /**
+     * Resolver-specific evaluation state.
+     */
+    Object state;
+
+    /**
+     * Create a new EvaluationContext.
+     * 
+     * @param wrapped
+     * @param resolver
+     *            to use in place of that of {@code wrapped}
+     */
+    EvaluationContext(ELContext wrapped, ELResolver resolver) {
+        super(wrapped);
+        this.resolver = resolver;
+    }
+
+    @Override
+    protected ELResolver wrap(ELResolver elResolver) {
+        // invoked during construction; see getELResolver():
+        return elResolver;
+    }
+
+    @Override
+    public ELResolver getELResolver() {
+        return resolver;
+    }
+
+    /**
+     * Expose this object to resolution against any context that wraps it (e.g. an implementation-specific
+     * evaluation context).
+     */
+    @Override
+    public Object getContext(@SuppressWarnings("rawtypes") Class key) {
+        return key == EvaluationContext.class ? this : super.getContext(key);
+    }
+
+    /**
+     * Find the innermost EvaluationContext of {@code resolver} available from {@code context}, looking past those of
+     * other resolvers.
+     * 
+     * @param context
+     * @param resolver
+     * @return EvaluationContext or {@code null} if {@code context} is not taking part in an evaluation by
+     *         {@code resolver}
+     */
+    static EvaluationContext of(ELContext context, ELResolver resolver) {
+        EvaluationContext result =
+            context instanceof EvaluationContext ? (EvaluationContext) context : UEL.getContext(context,
+                EvaluationContext.class);
+        while (result != null && result.resolver != resolver) {
+            result = UEL.getContext(result.wrapped, EvaluationContext.class);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.ValueExpression;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Traces {@link ValueExpression} evaluations, reporting to a {@link Listener} an {@link Event} for each evaluation
+ * lasting at least a given threshold, optionally with the tree of
+ * {@link ELResolver#getValue(ELContext, Object, Object)} steps taken. Listeners may forward events to any profiling
+ * facility in use, e.g. as custom Java Flight Recorder events. A {@link RuntimeException} thrown by a listener is
+ * swallowed, so that it never masks the outcome of the evaluation, and counted; see
+ * {@link #getListenerFailureCount()}. A disabled tracer evaluates directly, at the cost of a single volatile read.
+ */
+public class EvaluationTracer {
+    /**
+     * Receives traced evaluations.
+     */
+    public interface Listener {
+        /**
+         * Handle {@code event}. Invoked on the evaluating thread.
+         * 
+         * @param event
+         */
+        void evaluated(Event event);
+    }
+
+    /**
+     * A single {@link ELResolver#getValue(ELContext, Object, Object)} step.
+     */
+    public static final class Step {
+        private final int depth;
+        private final Class<?> baseType;
+        private final Object property;
+        private final boolean resolved;
+        private final long durationNanos;
+
+        Step(int depth, Class<?> baseType, Object property, boolean resolved, long durationNanos) {
+            this.depth = depth;
+            this.baseType = baseType;
+            this.property = property;
+            this.resolved = resolved;
+            this.durationNanos = durationNanos;
+        }
+
+        /**
+         * Get the nesting depth of this step, {@code 0} for a step taken directly by the expression.
+         * 
+         * @return int
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Get the base type.
+         * 
+         * @return Class, {@code null} for a {@code null} base
+         */
+        public Class<?> getBaseType() {
+            return baseType;
+        }
+
+        /**
+         * Get the property.
+         * 
+         * @return Object
+         */
+        public Object getProperty() {
+            return property;
+        }
+
+        /**
+         * Learn whether the property was resolved.
+         * 
+         * @return boolean
+         */
+        public boolean isResolved() {
+            return resolved;
+        }
+
+        /**
+         * Get the duration of this step, including nested steps.
+         * 
+         * @return long nanoseconds
+         */
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s[%s] %s %dns", baseType == null ? "" : baseType.getName(), property,
+                resolved ? "resolved" : "unresolved", durationNanos);
+        }
+    }
+
+    /**
+     * A traced evaluation.
+     */
+    public static final class Event {
+        private final String expression;
+        private final long startTimeMillis;
+        private final long durationNanos;
+        private final Class<?> resultType;
+        private final Throwable failure;
+        private final List<Step> steps;
+
+        Event(String expression, long startTimeMillis, long durationNanos, Class<?> resultType, Throwable failure,
+            List<Step> steps) {
+            this.expression = expression;
+            this.startTimeMillis = startTimeMillis;
+            this.durationNanos = durationNanos;
+            this.resultType = resultType;
+            this.failure = failure;
+            this.steps = steps;
+        }
+
+        /**
+         * Get the expression string.
+         * 
+         * @return String
+         */
+        public String getExpression() {
+            return expression;
+        }
+
+        /**
+         * Get the start time.
+         * 
+         * @return long per {@link System#currentTimeMillis()}
+         */
+        public long getStartTimeMillis() {
+            return startTimeMillis;
+        }
+
+        /**
+         * Get the duration.
+         * 
+         * @return long nanoseconds
+         */
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        /**
+         * Get the type of the result.
+         * 
+         * @return Class, {@code null} for a {@code null} result or a failed evaluation
+         */
+        public Class<?> getResultType() {
+            return resultType;
+        }
+
+        /**
+         * Get the failure, if any.
+         * 
+         * @return {@link RuntimeException}, {@link Error}, or {@code null}
+         */
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        /**
+         * Get the resolution steps, in the order begun, if steps were traced.
+         * 
+         * @return unmodifiable List of Step
+         */
+        public List<Step> getSteps() {
+            return steps;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %dns -> %s", expression, durationNanos, failure == null ? resultType : failure);
+        }
+    }
+
+    /**
+     * Evaluation-scoped {@link ELContext} recording the steps taken by its {@link ELResolver}.
+     */
+    private static class Trace extends ELContextWrapper {
+        final List<Step> steps = new ArrayList<Step>();
+        int depth;
+
+        Trace(ELContext wrapped) {
+            super(wrapped);
+        }
+
+        @Override
+        protected ELResolver wrap(ELResolver elResolver) {
+            return new ELResolverWrapper(elResolver) {
+
+                @Override
+                public Object getValue(ELContext context, Object base, Object property) {
+                    final int index = steps.size();
+                    steps.add(null);
+                    final long start = System.nanoTime();
+                    depth++;
+                    try {
+                        return super.getValue(context, base, property);
+                    } finally {
+                        depth--;
+                        steps.set(index, new Step(depth, base == null ? null : base.getClass(), property,
+                            context.isPropertyResolved(), System.nanoTime() - start));
+                    }
+                }
+            };
+        }
+    }
+
+    private final Listener listener;
+    private final long thresholdNanos;
+    private final boolean traceSteps;
+    private final AtomicLong listenerFailures = new AtomicLong();
+    private volatile boolean enabled = true;
+
+    /**
+     * Create a new EvaluationTracer.
+     * 
+     * @param listener
+     * @param thresholdNanos
+     *            minimum duration of a reported evaluation
+     * @param traceSteps
+     *            whether to record resolution steps
+     */
+    public EvaluationTracer(Listener listener, long thresholdNanos, boolean traceSteps) {
+        this.listener = Validate.notNull(listener, "listener");
+        Validate.isTrue(thresholdNanos >= 0, "negative threshold");
+        this.thresholdNanos = thresholdNanos;
+        this.traceSteps = traceSteps;
+    }
+
+    /**
+     * Learn whether this tracer is enabled.
+     * 
+     * @return boolean
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable or disable this tracer.
+     * 
+     * @param enabled
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Get the number of {@link RuntimeException}s thrown, and swallowed, by the listener so far.
+     * 
+     * @return long
+     */
+    public long getListenerFailureCount() {
+        return listenerFailures.get();
+    }
+
+    /**
+     * Evaluate {@code valueExpression} against {@code context}, tracing if enabled.
+     * 
+     * @param context
+     * @param valueExpression
+     * @return Object
+     */
+    public Object getValue(ELContext context, ValueExpression valueExpression) {
+        if (!enabled) {
+            return valueExpression.getValue(context);
+        }
+        final Trace trace = traceSteps ? new Trace(context) : null;
+        final long startTimeMillis = System.currentTimeMillis();
+        final long start = System.nanoTime();
+        final Object result;
+        try {
+            result = valueExpression.getValue(trace == null ? context : trace);
+        } catch (RuntimeException e) {
+            report(valueExpression, startTimeMillis, System.nanoTime() - start, null, e, trace);
+            throw e;
+        } catch (Error e) {
+            report(valueExpression, startTimeMillis, System.nanoTime() - start, null, e, trace);
+            throw e;
+        }
+        report(valueExpression, startTimeMillis, System.nanoTime() - start, result, null, trace);
+        return result;
+    }
+
+    /**
+     * Evaluate {@code valueExpression} by way of {@link HelperELContext#evaluate(ValueExpression)}, tracing if enabled.
+     * Resolution steps are not recorded, as the {@link ELResolver} of a {@link HelperELContext} is fixed.
+     * 
+     * @param <RESULT>
+     * @param context
+     * @param valueExpression
+     * @return RESULT
+     */
+    public <RESULT> RESULT evaluate(HelperELContext<RESULT> context, ValueExpression valueExpression) {
+        if (!enabled) {
+            return context.evaluate(valueExpression);
+        }
+        final long startTimeMillis = System.currentTimeMillis();
+        final long start = System.nanoTime();
+        final RESULT result;
+        try {
+            result = context.evaluate(valueExpression);
+        } catch (RuntimeException e) {
+            report(valueExpression, startTimeMillis, System.nanoTime() - start, null, e, null);
+            throw e;
+        } catch (Error e) {
+            report(valueExpression, startTimeMillis, System.nanoTime() - start, null, e, null);
+            throw e;
+        }
+        report(valueExpression, startTimeMillis, System.nanoTime() - start, result, null, null);
+        return result;
+    }
+
+    private void report(ValueExpression valueExpression, long startTimeMillis, long durationNanos, Object result,
+        Throwable failure, Trace trace) {
+        if (durationNanos < thresholdNanos) {
+            return;
+        }
+        final List<Step> steps =
+            trace == null ? Collections.<Step> emptyList() : Collections.unmodifiableList(trace.steps);
+        try {
+            listener.evaluated(new Event(valueExpression.getExpressionString(), startTimeMillis, durationNanos,
+                result == null ? null : result.getClass(), failure, steps));
+        } catch (RuntimeException e) {
+            listenerFailures.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.ExpressionFactory;
+import javax.el.FunctionMapper;
+import javax.el.ValueExpression;
+import javax.el.VariableMapper;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Size-bounded, least-recently-used cache of parsed {@link ValueExpression}s, keyed by expression text, expected type
+ * and {@link ExpressionFactory}. Entries are distributed across independently locked segments so that a single instance
+ * can be shared by many threads. Because EL variables and functions are bound when an expression is parsed, each entry
+ * records the {@link VariableMapper} and {@link FunctionMapper} lookups made by its parse, and is reused only by
+ * contexts that resolve the same names to the same variable expressions and function {@link Method}s; expressions
+ * referencing neither are therefore shared among all contexts. An instance stored as the {@link ExpressionCache}
+ * context object of an {@link ELContext} is used by {@link UEL#createValueExpression(ELContext, String, Class)}.
+ */
+public class ExpressionCache {
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private static class Key {
+        final String expression;
+        final Class<?> expectedType;
+        final ExpressionFactory expressionFactory;
+        final int hash;
+
+        Key(String expression, Class<?> expectedType, ExpressionFactory expressionFactory) {
+            this.expression = expression;
+            this.expectedType = expectedType;
+            this.expressionFactory = expressionFactory;
+            int h = expression.hashCode();
+            h = 31 * h + expectedType.hashCode();
+            h = 31 * h + System.identityHashCode(expressionFactory);
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return other.hash == hash && other.expectedType == expectedType
+                && other.expressionFactory == expressionFactory && other.expression.equals(expression);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * A variable or function lookup made while parsing, together with its result.
+     */
+    private interface Binding {
+        boolean matches(ELContext context);
+    }
+
+    private static class VariableBinding implements Binding {
+        final String name;
+        final ValueExpression expression;
+
+        VariableBinding(String name, ValueExpression expression) {
+            this.name = name;
+            this.expression = expression;
+        }
+
+        @Override
+        public boolean matches(ELContext context) {
+            final VariableMapper variableMapper = context.getVariableMapper();
+            return (variableMapper == null ? null : variableMapper.resolveVariable(name)) == expression;
+        }
+    }
+
+    private static class FunctionBinding implements Binding {
+        final String prefix;
+        final String localName;
+        final Method method;
+
+        FunctionBinding(String prefix, String localName, Method method) {
+            this.prefix = prefix;
+            this.localName = localName;
+            this.method = method;
+        }
+
+        @Override
+        public boolean matches(ELContext context) {
+            final FunctionMapper functionMapper = context.getFunctionMapper();
+            final Method resolved = functionMapper == null ? null : functionMapper.resolveFunction(prefix, localName);
+            return resolved == null ? method == null : resolved.equals(method);
+        }
+    }
+
+    private static class Entry {
+        final ValueExpression expression;
+        final Binding[] bindings;
+
+        Entry(ValueExpression expression, Binding[] bindings) {
+            this.expression = expression;
+            this.bindings = bindings;
+        }
+
+        boolean isValidFor(ELContext context) {
+            for (Binding binding : bindings) {
+                if (!binding.matches(context)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Parsing context that records the {@link Binding}s made against the context it delegates to.
+     */
+    private static class RecordingContext extends ELContext {
+        final ELContext delegate;
+        final List<Binding> bindings = new ArrayList<Binding>();
+
+        final VariableMapper variableMapper = new VariableMapper() {
+
+            @Override
+            public ValueExpression resolveVariable(String variable) {
+                final VariableMapper target = delegate.getVariableMapper();
+                final ValueExpression result = target == null ? null : target.resolveVariable(variable);
+                bindings.add(new VariableBinding(variable, result));
+                return result;
+            }
+
+            @Override
+            public ValueExpression setVariable(String variable, ValueExpression expression) {
+                return delegate.getVariableMapper().setVariable(variable, expression);
+            }
+        };
+
+        final FunctionMapper functionMapper = new FunctionMapper() {
+
+            @Override
+            public Method resolveFunction(String prefix, String localName) {
+                final FunctionMapper target = delegate.getFunctionMapper();
+                final Method result = target == null ? null : target.resolveFunction(prefix, localName);
+                bindings.add(new FunctionBinding(prefix, localName, result));
+                return result;
+            }
+        };
+
+        RecordingContext(ELContext delegate) {
+            this.delegate = delegate;
+            setLocale(delegate.getLocale());
+        }
+
+        @Override
+        public ELResolver getELResolver() {
+            return delegate.getELResolver();
+        }
+
+        @Override
+        public FunctionMapper getFunctionMapper() {
+            return functionMapper;
+        }
+
+        @Override
+        public VariableMapper getVariableMapper() {
+            return variableMapper;
+        }
+
+        @Override
+        public Object getContext(@SuppressWarnings("rawtypes") Class key) {
+            return delegate.getContext(key);
+        }
+
+        @Override
+        public void putContext(@SuppressWarnings("rawtypes") Class key, Object contextObject) {
+            delegate.putContext(key, contextObject);
+        }
+    }
+
+    private class Segment extends LinkedHashMap<Key, Entry> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, ExpressionCache.Entry> eldest) {
+            if (size() > capacity) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private final Segment[] segments;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Create a new ExpressionCache.
+     *
+     * @param maximumSize
+     */
+    public ExpressionCache(int maximumSize) {
+        this(maximumSize, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Create a new ExpressionCache. Because each segment is bounded individually, the effective maximum size is
+     * {@code maximumSize} rounded up to a multiple of the segment count.
+     *
+     * @param maximumSize
+     * @param concurrencyLevel
+     *            number of independently locked segments
+     */
+    public ExpressionCache(int maximumSize, int concurrencyLevel) {
+        Validate.isTrue(maximumSize > 0, "maximumSize must be > 0");
+        Validate.isTrue(concurrencyLevel > 0, "concurrencyLevel must be > 0");
+
+        final int segmentCount = Math.min(maximumSize, concurrencyLevel);
+        final int segmentCapacity = (maximumSize + segmentCount - 1) / segmentCount;
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * Get a {@link ValueExpression} for the specified expression text and expected type, parsing it with
+     * {@link UEL#getExpressionFactory(ELContext)} on a cache miss.
+     *
+     * @param context
+     * @param expression
+     * @param expectedType
+     * @return ValueExpression
+     */
+    public ValueExpression getValueExpression(ELContext context, String expression, Class<?> expectedType) {
+        Validate.notNull(context, "context");
+        Validate.notNull(expression, "expression");
+        Validate.notNull(expectedType, "expectedType");
+
+        final ExpressionFactory expressionFactory = UEL.getExpressionFactory(context);
+        final Key key = new Key(expression, expectedType, expressionFactory);
+        final Segment segment = segmentFor(key);
+
+        Entry cached;
+        synchronized (segment) {
+            cached = segment.get(key);
+        }
+        // consult the mappers of the context outside the lock:
+        if (cached != null && cached.isValidFor(context)) {
+            hits.incrementAndGet();
+            return cached.expression;
+        }
+        misses.incrementAndGet();
+
+        // parse outside the lock; should another thread have beaten us, prefer its result:
+        final RecordingContext recordingContext = new RecordingContext(context);
+        final ValueExpression result =
+            expressionFactory.createValueExpression(recordingContext, expression, expectedType);
+        final Entry entry =
+            new Entry(result, recordingContext.bindings.toArray(new Binding[recordingContext.bindings.size()]));
+        synchronized (segment) {
+            cached = segment.get(key);
+        }
+        if (cached != null && cached.isValidFor(context)) {
+            return cached.expression;
+        }
+        synchronized (segment) {
+            segment.put(key, entry);
+        }
+        return result;
+    }
+
+    /**
+     * Discard all cached expressions. Statistics are unaffected.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Get the number of cached expressions.
+     *
+     * @return int
+     */
+    public int size() {
+        int result = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                result += segment.size();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the number of lookups satisfied from this cache.
+     *
+     * @return long
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of lookups that required an expression to be parsed.
+     *
+     * @return long
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Get the number of expressions discarded to respect the maximum size of this cache.
+     *
+     * @return long
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private Segment segmentFor(Key key) {
+        // spread the hash bits so that segment selection does not rely on the low bits alone:
+        int h = key.hash;
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+        return segments[(h & Integer.MAX_VALUE) % segments.length];
+    }
+}
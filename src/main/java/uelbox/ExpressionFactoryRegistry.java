@@ -0,0 +1,176 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+
+import javax.el.ELContext;
+import javax.el.ELException;
+import javax.el.ExpressionFactory;
+
+/**
+ * Registry of shared {@link ExpressionFactory} instances, one per {@link ClassLoader}, consulted by
+ * {@link UEL#getExpressionFactory(ELContext)} for any {@link ELContext} lacking an {@link ExpressionFactory} context
+ * object in place of a call to {@link ExpressionFactory#newInstance()} per context. Lookups default to the current
+ * thread's context {@link ClassLoader}. Registrations are weakly keyed, and lookups take no lock. Explicitly
+ * registered factories are held strongly, except that a factory whose class was loaded by the {@link ClassLoader} it
+ * is registered for (or by a descendant thereof), and would thus keep that {@link ClassLoader} from being discarded,
+ * is held weakly: its registrant must keep it reachable, e.g. from a static field of one of its own classes. A factory
+ * created by the registry whose class might be discarded before uelbox itself is held softly, and is simply created
+ * anew should it be reclaimed. The implementation is determined, in order of precedence, by
+ * explicit registration via {@link #setExpressionFactory(ClassLoader, ExpressionFactory)}, by the
+ * {@value #IMPLEMENTATION_PROPERTY} system property naming an {@link ExpressionFactory} class, and finally by
+ * {@link ExpressionFactory#newInstance()}.
+ */
+public final class ExpressionFactoryRegistry {
+    /**
+     * System property naming the {@link ExpressionFactory} implementation class to instantiate.
+     */
+    public static final String IMPLEMENTATION_PROPERTY = "uelbox.ExpressionFactory";
+
+    /**
+     * Per {@link ClassLoader}, an {@link ExpressionFactory} or a {@link Reference} thereto.
+     */
+    private static final WeakKeyMap<ClassLoader, Object> FACTORIES = new WeakKeyMap<ClassLoader, Object>();
+
+    private ExpressionFactoryRegistry() {
+    }
+
+    /**
+     * Get the {@link ExpressionFactory} registered for the current thread's context {@link ClassLoader}, creating and
+     * registering one if necessary.
+     * 
+     * @return ExpressionFactory
+     */
+    public static ExpressionFactory getExpressionFactory() {
+        return getExpressionFactory(Thread.currentThread().getContextClassLoader());
+    }
+
+    /**
+     * Get the {@link ExpressionFactory} registered for the specified {@link ClassLoader}, creating and registering one
+     * if necessary.
+     * 
+     * @param classLoader
+     *            if {@code null}, the {@link ClassLoader} of uelbox
+     * @return ExpressionFactory
+     */
+    public static ExpressionFactory getExpressionFactory(ClassLoader classLoader) {
+        final ClassLoader key = classLoader == null ? ExpressionFactoryRegistry.class.getClassLoader() : classLoader;
+        final ExpressionFactory result = dereference(FACTORIES.get(key));
+        if (result != null) {
+            return result;
+        }
+        final ExpressionFactory created = create(key);
+        final Object value =
+            UEL.isCacheSafe(created.getClass()) ? created : new SoftReference<ExpressionFactory>(created);
+        // should another thread have beaten us, prefer its result:
+        while (true) {
+            final Object existing = FACTORIES.putIfAbsent(key, value);
+            if (existing == null) {
+                return created;
+            }
+            final ExpressionFactory registered = dereference(existing);
+            if (registered != null) {
+                return registered;
+            }
+            if (FACTORIES.replace(key, existing, value)) {
+                return created;
+            }
+        }
+    }
+
+    /**
+     * Explicitly register an {@link ExpressionFactory} for the specified {@link ClassLoader}.
+     * 
+     * @param classLoader
+     *            if {@code null}, the {@link ClassLoader} of uelbox
+     * @param expressionFactory
+     *            if {@code null}, unregisters any factory, such that one will be created upon next request
+     */
+    public static void setExpressionFactory(ClassLoader classLoader, ExpressionFactory expressionFactory) {
+        final ClassLoader key = classLoader == null ? ExpressionFactoryRegistry.class.getClassLoader() : classLoader;
+        if (expressionFactory == null) {
+            FACTORIES.remove(key);
+        } else if (isLoadedBy(expressionFactory.getClass(), key)) {
+            FACTORIES.put(key, new WeakReference<ExpressionFactory>(expressionFactory));
+        } else {
+            FACTORIES.put(key, expressionFactory);
+        }
+    }
+
+    /**
+     * Startup hook: obtain the {@link ExpressionFactory} for the current thread's context {@link ClassLoader} and
+     * exercise its parser and evaluator once, so that the associated class loading and initialization are not borne
+     * by the first real evaluation.
+     * 
+     * @return ExpressionFactory
+     */
+    public static ExpressionFactory prewarm() {
+        final ExpressionFactory result = getExpressionFactory();
+        final ELContext context = new SimpleELContext();
+        context.putContext(ExpressionFactory.class, result);
+        result.createValueExpression(context, "#{1 + 1 == 2 and empty ''}", Boolean.class).getValue(context);
+        result.coerceToType("1", Integer.class);
+        return result;
+    }
+
+    private static ExpressionFactory dereference(Object value) {
+        if (value instanceof Reference<?>) {
+            return (ExpressionFactory) ((Reference<?>) value).get();
+        }
+        return (ExpressionFactory) value;
+    }
+
+    /**
+     * Learn whether {@code type} was loaded by {@code classLoader} or one of its descendants, and so strongly reaches
+     * it.
+     */
+    private static boolean isLoadedBy(Class<?> type, ClassLoader classLoader) {
+        for (ClassLoader cl = type.getClassLoader(); cl != null; cl = cl.getParent()) {
+            if (cl == classLoader) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ExpressionFactory create(ClassLoader classLoader) {
+        final String implementation = System.getProperty(IMPLEMENTATION_PROPERTY);
+        if (implementation != null) {
+            try {
+                return (ExpressionFactory) Class.forName(implementation, true, classLoader).getConstructor()
+                    .newInstance();
+            } catch (Exception e) {
+                throw new ELException(String.format("Unable to instantiate %s %s", IMPLEMENTATION_PROPERTY,
+                    implementation), e);
+            }
+        }
+        // ExpressionFactory.newInstance() consults the thread context ClassLoader:
+        final Thread thread = Thread.currentThread();
+        final ClassLoader previous = thread.getContextClassLoader();
+        if (previous == classLoader) {
+            return ExpressionFactory.newInstance();
+        }
+        thread.setContextClassLoader(classLoader);
+        try {
+            return ExpressionFactory.newInstance();
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Immutable, parsed representation of a UEL property path: a trigger character plus the segments separated by
+ * {@code .} or introduced by {@code [} at the top level of the expression, e.g. {@code #{foo[bar].baz}} consists of
+ * {@code foo}, {@code [bar]}, and {@code baz}. A trailing {@code .} is retained, as by
+ * {@link UEL#join(char, CharSequence...)}, until consumed by a subsequent child. Rendered forms are computed once per
+ * instance, and children created by {@link #child(CharSequence)} from {@link String} arguments are canonicalized per
+ * parent, so that repeatedly building the same path from the same root allocates nothing once warm.
+ */
+public final class ExpressionPath {
+    private static final int MAX_CACHED_CHILDREN = 64;
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ExpressionPath, ConcurrentMap> CHILDREN =
+        AtomicReferenceFieldUpdater.newUpdater(ExpressionPath.class, ConcurrentMap.class, "children");
+    private static final char DOT = '.';
+    private static final char LBRACK = '[';
+    private static final char RBRACK = ']';
+    private static final char LPAREN = '(';
+    private static final char RPAREN = ')';
+
+    private final char trigger;
+    private final String[] segments;
+    private final boolean trailingDot;
+    private final String expression;
+    private final String embedded;
+
+    /**
+     * Canonical children, created upon the first call to {@link #child(CharSequence)}, as most paths have none.
+     */
+    private volatile ConcurrentMap<String, ExpressionPath> children;
+
+    private ExpressionPath(char trigger, String[] segments, boolean trailingDot) {
+        this.trigger = trigger;
+        this.segments = segments;
+        this.trailingDot = trailingDot;
+        final StringBuilder buf = new StringBuilder();
+        for (String segment : segments) {
+            if (buf.length() > 0 && segment.charAt(0) != LBRACK) {
+                buf.append(DOT);
+            }
+            buf.append(segment);
+        }
+        if (trailingDot) {
+            buf.append(DOT);
+        }
+        this.expression = buf.toString();
+        this.embedded = UEL.embed(expression, trigger);
+    }
+
+    /**
+     * Parse the specified expression, which may or may not be delimited. The trigger character of a delimited
+     * expression is retained; {@link UEL#DEFAULT_TRIGGER} is used otherwise.
+     *
+     * @param expression
+     * @return ExpressionPath
+     */
+    public static ExpressionPath parse(CharSequence expression) {
+        final char trigger = UEL.isDelimited(expression) ? UEL.getTrigger(expression) : UEL.DEFAULT_TRIGGER;
+        return parse(trigger, expression);
+    }
+
+    /**
+     * Parse the specified expression, which may or may not be delimited, using the specified trigger character.
+     *
+     * @param trigger
+     * @param expression
+     * @return ExpressionPath
+     */
+    public static ExpressionPath parse(char trigger, CharSequence expression) {
+        return new ExpressionPath(trigger, split(expression), endsWithDot(expression));
+    }
+
+    /**
+     * Get the trigger character.
+     *
+     * @return char
+     */
+    public char getTrigger() {
+        return trigger;
+    }
+
+    /**
+     * Get the segments of this path.
+     *
+     * @return unmodifiable List of String
+     */
+    public List<String> getSegments() {
+        return Collections.unmodifiableList(Arrays.asList(segments));
+    }
+
+    /**
+     * Get the number of segments of this path.
+     *
+     * @return int
+     */
+    public int size() {
+        return segments.length;
+    }
+
+    /**
+     * Get the undelimited expression.
+     *
+     * @return String
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Get an {@link ExpressionPath} consisting of this path's segments followed by those of {@code part}, per the rules
+     * of {@link UEL#join(char, CharSequence...)}.
+     *
+     * @param part
+     *            which may or may not be delimited
+     * @return ExpressionPath
+     */
+    public ExpressionPath child(CharSequence part) {
+        Validate.notNull(part, "part");
+        ConcurrentMap<String, ExpressionPath> cache = children;
+        if (part instanceof String && cache != null) {
+            final ExpressionPath cached = cache.get(part);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        final int start = UEL.strippedStart(part);
+        if (start == UEL.strippedEnd(part, start)) {
+            return this;
+        }
+        final ExpressionPath result =
+            new ExpressionPath(trigger, ArrayUtils.addAll(segments, split(part)), endsWithDot(part));
+
+        if (part instanceof String) {
+            if (cache == null) {
+                CHILDREN.compareAndSet(this, null, new ConcurrentHashMap<String, ExpressionPath>());
+                cache = children;
+            }
+            if (cache.size() < MAX_CACHED_CHILDREN) {
+                final ExpressionPath raced = cache.putIfAbsent((String) part, result);
+                if (raced != null) {
+                    return raced;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get an {@link ExpressionPath} having this path's segments and the specified trigger character.
+     *
+     * @param trigger
+     * @return ExpressionPath
+     */
+    public ExpressionPath withTrigger(char trigger) {
+        return trigger == this.trigger ? this : new ExpressionPath(trigger, segments, trailingDot);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof ExpressionPath)) {
+            return false;
+        }
+        return ((ExpressionPath) obj).embedded.equals(embedded);
+    }
+
+    @Override
+    public int hashCode() {
+        return embedded.hashCode();
+    }
+
+    /**
+     * Get the delimited expression.
+     *
+     * @return String
+     */
+    @Override
+    public String toString() {
+        return embedded;
+    }
+
+    /**
+     * Split the stripped content of {@code expression} at top-level {@code .} and {@code [} characters, ignoring those
+     * enclosed by brackets, parentheses, or string literals.
+     */
+    private static String[] split(CharSequence expression) {
+        if (expression == null) {
+            return ArrayUtils.EMPTY_STRING_ARRAY;
+        }
+        final int start = UEL.strippedStart(expression);
+        final int end = UEL.strippedEnd(expression, start);
+        final List<String> result = new ArrayList<String>();
+
+        int segmentStart = start;
+        int depth = 0;
+        char quote = 0;
+        for (int i = start; i < end; i++) {
+            final char c = expression.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            switch (c) {
+            case '\'':
+            case '"':
+                quote = c;
+                break;
+            case LPAREN:
+                depth++;
+                break;
+            case RPAREN:
+            case RBRACK:
+                depth--;
+                break;
+            case DOT:
+                if (depth == 0) {
+                    addSegment(result, expression, segmentStart, i);
+                    segmentStart = i + 1;
+                }
+                break;
+            case LBRACK:
+                if (depth++ == 0) {
+                    addSegment(result, expression, segmentStart, i);
+                    segmentStart = i;
+                }
+                break;
+            default:
+                break;
+            }
+        }
+        addSegment(result, expression, segmentStart, end);
+        return result.toArray(new String[result.size()]);
+    }
+
+    /**
+     * Learn whether the stripped content of {@code expression} ends with {@code .}, which
+     * {@link UEL#join(char, CharSequence...)} retains.
+     */
+    private static boolean endsWithDot(CharSequence expression) {
+        if (expression == null) {
+            return false;
+        }
+        final int start = UEL.strippedStart(expression);
+        final int end = UEL.strippedEnd(expression, start);
+        return end > start && expression.charAt(end - 1) == DOT;
+    }
+
+    private static void addSegment(List<String> segments, CharSequence expression, int start, int end) {
+        int from = start;
+        int to = end;
+        while (from < to && expression.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && expression.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        if (from < to) {
+            segments.add(expression.subSequence(from, to).toString());
+        }
+    }
+}
@@ -15,6 +15,9 @@
  */
 package uelbox;
 
+import java.util.Collection;
+import java.util.List;
+
 import javax.el.ELContext;
 import javax.el.ELResolver;
 import javax.el.ValueExpression;
@@ -22,7 +25,8 @@ import javax.el.ValueExpression;
 /**
  * Abstract "helper" ELContext: wraps another ELContext and its associated ELResolver, providing a convenience API to
  * return results from evaluating ValueExpressions using a HelperELResolver. Like any other ELContext, an instance of
- * this class is not thread-safe.
+ * this class is not thread-safe. Resolution state is held as a context object, and is therefore discarded when an
+ * instance is recycled by an {@link ELContextWrapperPool}.
  */
 public abstract class HelperELContext<RESULT> extends ELContextWrapper {
     /**
@@ -61,4 +65,27 @@ public abstract class HelperELContext<RESULT> extends ELContextWrapper {
         valueExpression.setValue(this, null);
         return getELResolver().getResult(this);
     }
+
+    /**
+     * Return the results of evaluating {@code valueExpressions}, in order.
+     * 
+     * @param valueExpressions
+     * @return List of RESULT
+     * @see HelperELResolver#evaluateAll(ELContext, Collection)
+     */
+    public final List<RESULT> evaluateAll(Collection<? extends ValueExpression> valueExpressions) {
+        return getELResolver().evaluateAll(this, valueExpressions);
+    }
+
+    /**
+     * Evaluate {@code valueExpressions}, in order, passing each result to {@code handler}.
+     * 
+     * @param valueExpressions
+     * @param handler
+     * @see HelperELResolver#evaluateAll(ELContext, Iterable, HelperELResolver.ResultHandler)
+     */
+    public final void evaluateAll(Iterable<? extends ValueExpression> valueExpressions,
+        HelperELResolver.ResultHandler<? super RESULT> handler) {
+        getELResolver().evaluateAll(this, valueExpressions, handler);
+    }
 }
@@ -15,8 +15,13 @@
  */
 package uelbox;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import javax.el.ELContext;
 import javax.el.ELResolver;
+import javax.el.ValueExpression;
 
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.mutable.MutableInt;
@@ -24,7 +29,10 @@ import org.apache.commons.lang3.mutable.MutableInt;
 /**
  * Abstract "helper" ELResolver: handles each step in the resolution of an expression, turning the ultimate set/invoke
  * operation into a no-op, and providing a result object after each such call. Automatically skips intervening/nested
- * calls between nodes of the "main" expression. Not thread-safe.
+ * calls between nodes of the "main" expression. Resolution state is ordinarily kept as a context object of the
+ * evaluating {@link ELContext}, which, like any ELContext, is not thread-safe; however, evaluations made via
+ * {@link #evaluate(ELContext, ValueExpression)} keep their state in an evaluation-scoped {@link ELContext} of their
+ * own, such that a single instance may serve any number of concurrent evaluations without locking.
  */
 public abstract class HelperELResolver<RESULT> extends ELResolverWrapper {
     /**
@@ -36,11 +44,15 @@ public abstract class HelperELResolver<RESULT> extends ELResolverWrapper {
     public abstract static class WithWorkingStorage<WORKING_STORAGE, RESULT> extends HelperELResolver<RESULT> {
         private class StateWithWorkingStorage extends WithWorkingStorage.State {
             WORKING_STORAGE workingStorage;
+            WORKING_STORAGE previousWorkingStorage;
 
             @Override
             void reset() {
                 super.reset();
-                workingStorage = null;
+                if (workingStorage != null) {
+                    previousWorkingStorage = workingStorage;
+                    workingStorage = null;
+                }
             }
         }
 
@@ -79,8 +91,7 @@ public abstract class HelperELResolver<RESULT> extends ELResolverWrapper {
          */
         protected final WORKING_STORAGE getWorkingStorage(ELContext context) {
             @SuppressWarnings("unchecked")
-            final WORKING_STORAGE result =
-                ((StateWithWorkingStorage) UEL.getContext(context, State.class)).workingStorage;
+            final WORKING_STORAGE result = ((StateWithWorkingStorage) getState(context)).workingStorage;
             return result;
         }
 
@@ -89,7 +100,11 @@ public abstract class HelperELResolver<RESULT> extends ELResolverWrapper {
             @SuppressWarnings("unchecked")
             final StateWithWorkingStorage state = (StateWithWorkingStorage) super.getOrCreateState(context, base);
             if (state.workingStorage == null) {
-                state.workingStorage = createWorkingStorage(context, base);
+                final WORKING_STORAGE previous = state.previousWorkingStorage;
+                state.previousWorkingStorage = null;
+                state.workingStorage =
+                    previous == null ? createWorkingStorage(context, base) : recycleWorkingStorage(context, base,
+                        previous);
             }
             return state;
         }
@@ -108,6 +123,21 @@ public abstract class HelperELResolver<RESULT> extends ELResolverWrapper {
          */
         protected abstract WORKING_STORAGE createWorkingStorage(ELContext context, Object base);
 
+        /**
+         * Obtain a working storage object for the specified context and base object, given the working storage object
+         * of the previous resolution tracked by the same state (e.g. the previous member of a batch). Default
+         * implementation defers to {@link #createWorkingStorage(ELContext, Object)}; an override may reinitialize and
+         * return {@code previous} provided that it cannot have escaped as (part of) a result.
+         * 
+         * @param context
+         * @param base
+         * @param previous
+         * @return WORKING_STORAGE
+         */
+        protected WORKING_STORAGE recycleWorkingStorage(ELContext context, Object base, WORKING_STORAGE previous) {
+            return createWorkingStorage(context, base);
+        }
+
         @Override
         protected final void afterGetValue(ELContext context, Object base, Object property, Object value) {
             afterGetValue(context, base, property, value, getWorkingStorage(context));
@@ -126,6 +156,21 @@ public abstract class HelperELResolver<RESULT> extends ELResolverWrapper {
 
     }
 
+    /**
+     * Receives the results of a batch evaluation.
+     * 
+     * @param <RESULT>
+     */
+    public interface ResultHandler<RESULT> {
+        /**
+         * Handle the result of evaluating {@code valueExpression}.
+         * 
+         * @param valueExpression
+         * @param result
+         */
+        void handle(ValueExpression valueExpression, RESULT result);
+    }
+
     enum Completion {
         NO, YES;
     }
@@ -235,8 +280,7 @@ public abstract class HelperELResolver<RESULT> extends ELResolverWrapper {
      * @return RESULT
      */
     public final RESULT getResult(ELContext context) {
-        @SuppressWarnings("unchecked")
-        final State state = UEL.getContext(context, State.class);
+        final State state = getState(context);
         Validate.validState(state != null && state.completion != Completion.NO);
         try {
             return state.result;
@@ -245,7 +289,94 @@ public abstract class HelperELResolver<RESULT> extends ELResolverWrapper {
         }
     }
 
+    /**
+     * Return the result of evaluating {@code valueExpression} against {@code context}, whose {@link ELResolver} is
+     * bypassed in favor of this instance. Thread-safe: resolution state is held by an evaluation-scoped
+     * {@link ELContext} wrapping {@code context}, rather than by {@code context} itself, and
+     * {@link #getResult(ELContext)} is implied.
+     * 
+     * @param context
+     * @param valueExpression
+     * @return RESULT
+     */
+    public final RESULT evaluate(ELContext context, ValueExpression valueExpression) {
+        final EvaluationContext evaluation = new EvaluationContext(context, this);
+        valueExpression.setValue(evaluation, null);
+        return getResult(evaluation);
+    }
+
+    /**
+     * Return the results of evaluating {@code valueExpressions}, in order, against {@code context}. A single
+     * evaluation-scoped {@link ELContext} and resolution state serve the entire batch; otherwise as
+     * {@link #evaluate(ELContext, ValueExpression)}.
+     * 
+     * @param context
+     * @param valueExpressions
+     * @return List of RESULT
+     */
+    public final List<RESULT> evaluateAll(ELContext context, Collection<? extends ValueExpression> valueExpressions) {
+        final List<RESULT> result = new ArrayList<RESULT>(valueExpressions.size());
+        evaluateAll(context, valueExpressions, new ResultHandler<RESULT>() {
+
+            @Override
+            public void handle(ValueExpression valueExpression, RESULT each) {
+                result.add(each);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Evaluate {@code valueExpressions}, in order, against {@code context}, passing each result to {@code handler}
+     * before proceeding to the next. A single evaluation-scoped {@link ELContext} and resolution state serve the entire
+     * batch; otherwise as {@link #evaluate(ELContext, ValueExpression)}.
+     * 
+     * @param context
+     * @param valueExpressions
+     * @param handler
+     */
+    public final void evaluateAll(ELContext context, Iterable<? extends ValueExpression> valueExpressions,
+        ResultHandler<? super RESULT> handler) {
+        Validate.notNull(handler, "handler");
+        final EvaluationContext evaluation = new EvaluationContext(context, this);
+        for (ValueExpression valueExpression : valueExpressions) {
+            valueExpression.setValue(evaluation, null);
+            handler.handle(valueExpression, getResult(evaluation));
+        }
+    }
+
+    /**
+     * Get the current resolution state, if any.
+     * 
+     * @param context
+     * @return State or {@code null}
+     */
+    State getState(ELContext context) {
+        final EvaluationContext evaluation = EvaluationContext.of(context, this);
+        if (evaluation != null) {
+            @SuppressWarnings("unchecked")
+            final State result = (State) evaluation.state;
+            return result;
+        }
+        @SuppressWarnings("unchecked")
+        final State result = UEL.getContext(context, State.class);
+        return result;
+    }
+
     State getOrCreateState(ELContext context, Object base) {
+        final EvaluationContext evaluation = EvaluationContext.of(context, this);
+        if (evaluation != null) {
+            @SuppressWarnings("unchecked")
+            State state = (State) evaluation.state;
+            if (state == null) {
+                state = createState(context, base);
+                evaluation.state = state;
+            } else if (state.completion == Completion.YES) {
+                state.reset();
+            }
+            state.tip = base;
+            return state;
+        }
         synchronized (context) {
             @SuppressWarnings("unchecked")
             State state = UEL.getContext(context, State.class);
@@ -16,7 +16,11 @@
 package uelbox;
 
 import java.beans.FeatureDescriptor;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
 
 import javax.el.ELContext;
 import javax.el.ELException;
@@ -27,9 +31,80 @@ import javax.el.PropertyNotWritableException;
 
 /**
  * Handles {@link Iterable} base objects in the manner of {@link ListELResolver}, but is always read-only and should not
- * be used as a fully featured replacement for that type.
+ * be used as a fully featured replacement for that type. {@link RandomAccess} {@link List}s are indexed directly; other
+ * {@link Iterable}s are traversed by a cursor kept per {@link ELContext}, so that ascending index access against the
+ * same base object advances a single live {@link Iterator} rather than starting over each time.
  */
 public class IterableELResolver extends ELResolver {
+    /**
+     * Remembers the position of a live {@link Iterator} over a given base object. The cursor is discarded whenever a
+     * different base, a lower or repeated index, a changed {@link Collection#size()} or a
+     * {@link ConcurrentModificationException} is encountered. The element last read is reused only by the
+     * {@link #getValue(ELContext, Object, Object)} call completing a {@link #getType(ELContext, Object, Object)}
+     * resolution of the same index, as the base may have been modified in place since.
+     */
+    private static class Cursor {
+        Iterable<?> base;
+        int size;
+        Iterator<?> iterator;
+        int index;
+        Object value;
+        boolean reusable;
+
+        /**
+         * Seek the element at {@code target}.
+         *
+         * @param iterable
+         * @param target
+         * @param typing whether the element may be reused by the next (value) seek
+         * @return element or {@link #OUT_OF_BOUNDS}
+         */
+        Object seek(Iterable<?> iterable, int target, boolean typing) {
+            final int currentSize = iterable instanceof Collection<?> ? ((Collection<?>) iterable).size() : -1;
+            final boolean reuse = reusable && !typing;
+            if (iterable != base || currentSize != size || target < index || target == index && !reuse) {
+                reset(iterable, currentSize);
+            }
+            try {
+                advance(target);
+            } catch (ConcurrentModificationException e) {
+                reset(iterable, currentSize);
+                advance(target);
+            }
+            if (index == target) {
+                reusable = typing;
+                return value;
+            }
+            reset(null, -1);
+            return OUT_OF_BOUNDS;
+        }
+
+        private void advance(int target) {
+            while (index < target && iterator.hasNext()) {
+                value = iterator.next();
+                index++;
+            }
+        }
+
+        private void reset(Iterable<?> iterable, int currentSize) {
+            reusable = false;
+            base = iterable;
+            size = currentSize;
+            iterator = iterable == null ? null : iterable.iterator();
+            index = -1;
+            value = null;
+        }
+    }
+
+    /**
+     * Marker returned by {@link #seek(ELContext, Object, Object, boolean)} when no element is addressed.
+     */
+    private static final Object NO_ELEMENT = new Object();
+
+    /**
+     * Marker returned by {@link #seek(ELContext, Object, Object, boolean)} for an illegal index.
+     */
+    private static final Object OUT_OF_BOUNDS = new Object();
 
     @Override
     public Class<?> getCommonPropertyType(ELContext context, Object base) {
@@ -44,7 +119,11 @@ public class IterableELResolver extends ELResolver {
     @Override
     public Class<?> getType(ELContext context, Object base, Object property) throws NullPointerException,
         PropertyNotFoundException, ELException {
-        return seek(context, base, property) == null ? null : Object.class;
+        final Object element = seek(context, base, property, true);
+        if (element == OUT_OF_BOUNDS) {
+            throw new PropertyNotFoundException(String.valueOf(property));
+        }
+        return element == NO_ELEMENT ? null : Object.class;
     }
 
     /**
@@ -53,14 +132,8 @@ public class IterableELResolver extends ELResolver {
     @Override
     public Object getValue(ELContext context, Object base, Object property) throws NullPointerException,
         PropertyNotFoundException, ELException {
-        
-        Iterator<?> pos;
-        try {
-            pos = seek(context, base, property);
-        } catch(PropertyNotFoundException e) {
-            pos = null;
-        }
-        return pos == null ? null : pos.next();
+        final Object result = seek(context, base, property, false);
+        return result == NO_ELEMENT || result == OUT_OF_BOUNDS ? null : result;
     }
 
     @Override
@@ -77,32 +150,37 @@ public class IterableELResolver extends ELResolver {
     }
 
     /**
-     * Establishes an Iterator and advances it to the specified index. If this operation succeeds the context will be
-     * set as having been resolved.
+     * Finds the element at the specified index. If this operation succeeds the context will be set as having been
+     * resolved.
      * 
      * @param context
      * @param base
      * @param property
-     * @return Iterator
-     * @throws PropertyNotFoundException
-     *             if index is out of bounds
+     * @param typing whether this is a {@link #getType(ELContext, Object, Object)} resolution
+     * @return element, {@link #NO_ELEMENT}, or {@link #OUT_OF_BOUNDS}
      */
-    private static Iterator<?> seek(ELContext context, Object base, Object property) {
+    private static Object seek(ELContext context, Object base, Object property, boolean typing) {
         if (base instanceof Iterable<?>) {
             context.setPropertyResolved(true);
             int index = toIndex(context, property);
             if (index >= 0) {
-                Iterator<?> result = ((Iterable<?>) base).iterator();
-                for (int i = 0; i < index && result.hasNext(); i++) {
-                    result.next();
-                }
-                if (result.hasNext()) {
-                    return result;
+                if (base instanceof List<?> && base instanceof RandomAccess) {
+                    final List<?> list = (List<?>) base;
+                    return index < list.size() ? list.get(index) : OUT_OF_BOUNDS;
                 }
-                throw new PropertyNotFoundException(String.valueOf(property));
+                return getCursor(context).seek((Iterable<?>) base, index, typing);
             }
         }
-        return null;
+        return NO_ELEMENT;
+    }
+
+    private static Cursor getCursor(ELContext context) {
+        Cursor result = UEL.getContext(context, Cursor.class);
+        if (result == null) {
+            result = new Cursor();
+            context.putContext(Cursor.class, result);
+        }
+        return result;
     }
 
     private static int toIndex(ELContext context, Object property) {
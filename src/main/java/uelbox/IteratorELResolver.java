@@ -0,0 +1,361 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.beans.FeatureDescriptor;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.el.ELContext;
+import javax.el.ELException;
+import javax.el.ELResolver;
+import javax.el.ListELResolver;
+import javax.el.PropertyNotFoundException;
+import javax.el.PropertyNotWritableException;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Handles single-pass {@link Iterator}, {@link Enumeration} and (where available) {@code java.util.stream.BaseStream}
+ * base objects in the manner of {@link ListELResolver}, but is always read-only. Elements are consumed lazily and
+ * retained in a bounded buffer kept per base object and {@link ELContext}, such that ascending index access streams
+ * through the source without materializing it, and access to any of the most recent {@code bufferSize} elements is
+ * repeatable. As the source cannot be rewound, requesting an index that has already left the buffer raises a
+ * {@link PropertyNotFoundException}. Buffers of iterators and enumerations are held weakly by their base objects, so
+ * that a long-lived or pooled {@link ELContext} does not retain them; as the iterator obtained from a stream may
+ * reference the stream itself, only the {@value #MAXIMUM_STREAMS} most recently accessed streams are buffered per
+ * {@link ELContext}, and a stream whose buffer has been discarded cannot be accessed again.
+ */
+public class IteratorELResolver extends ELResolver {
+    /**
+     * Default buffer size.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64;
+
+    /**
+     * Maximum number of stream buffers retained per {@link ELContext}.
+     */
+    public static final int MAXIMUM_STREAMS = 16;
+
+    private static final Method BASE_STREAM_ITERATOR = findBaseStreamIterator();
+
+    /**
+     * {@code java.util.stream.BaseStream}, or {@code null} where unavailable.
+     */
+    private static final Class<?> BASE_STREAM =
+        BASE_STREAM_ITERATOR == null ? null : BASE_STREAM_ITERATOR.getDeclaringClass();
+
+    /**
+     * Marker returned by {@link Buffer#get(int)} for an index beyond the end of the source.
+     */
+    private static final Object OUT_OF_BOUNDS = new Object();
+
+    /**
+     * Marker returned by {@link #seek(ELContext, Object, Object)} when no element is addressed.
+     */
+    private static final Object NO_ELEMENT = new Object();
+
+    /**
+     * Ring buffer of the most recently consumed elements of a single-pass base object.
+     */
+    private static class Buffer {
+        /**
+         * Iterator obtained from a stream base, else {@code null} so as not to reference the base.
+         */
+        final Iterator<?> streamIterator;
+        final Object[] elements;
+        /**
+         * Number of elements consumed.
+         */
+        int end;
+
+        Buffer(Iterator<?> streamIterator, int size) {
+            this.streamIterator = streamIterator;
+            this.elements = new Object[size];
+        }
+
+        Object get(Object base, int index) {
+            final int start = Math.max(0, end - elements.length);
+            if (index < start) {
+                throw new PropertyNotFoundException(String.format(
+                    "Index %d precedes buffered elements [%d, %d) of single-pass source", index, start, end));
+            }
+            final Iterator<?> source = streamIterator == null ? iterator(base) : streamIterator;
+            while (end <= index && source.hasNext()) {
+                elements[end++ % elements.length] = source.next();
+            }
+            return index < end ? elements[index % elements.length] : OUT_OF_BOUNDS;
+        }
+    }
+
+    /**
+     * Weak key that remembers the identity hash of its referent, so that it can be removed once cleared.
+     */
+    private static class WeakKey extends WeakReference<Object> {
+        final int hash;
+
+        WeakKey(Object base, ReferenceQueue<Object> queue) {
+            super(base, queue);
+            hash = System.identityHashCode(base);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof WeakKey)) {
+                return false;
+            }
+            final Object base = get();
+            return base != null && base == ((WeakKey) obj).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Strong identity key, which also finds the {@link WeakKey} of the same base.
+     */
+    private static class IdentityKey {
+        final Object base;
+
+        IdentityKey(Object base) {
+            this.base = base;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof IdentityKey) {
+                return ((IdentityKey) obj).base == base;
+            }
+            return obj instanceof WeakKey && ((WeakKey) obj).get() == base;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(base);
+        }
+    }
+
+    /**
+     * Per-{@link ELContext} buffers, by base identity.
+     */
+    private static class Buffers {
+        final Map<Object, Buffer> byBase = new HashMap<Object, Buffer>();
+        final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+        final Map<IdentityKey, Buffer> byStream = new LinkedHashMap<IdentityKey, Buffer>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<IdentityKey, Buffer> eldest) {
+                return size() > MAXIMUM_STREAMS;
+            }
+        };
+
+        Buffer get(Object base) {
+            final IdentityKey key = new IdentityKey(base);
+            return isStream(base) ? byStream.get(key) : byBase.get(key);
+        }
+
+        void put(Object base, Buffer buffer) {
+            if (isStream(base)) {
+                byStream.put(new IdentityKey(base), buffer);
+                return;
+            }
+            for (Reference<?> ref = queue.poll(); ref != null; ref = queue.poll()) {
+                byBase.remove(ref);
+            }
+            byBase.put(new WeakKey(base, queue), buffer);
+        }
+    }
+
+    private static class EnumerationIterator implements Iterator<Object> {
+        final Enumeration<?> enumeration;
+
+        EnumerationIterator(Enumeration<?> enumeration) {
+            this.enumeration = enumeration;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return enumeration.hasMoreElements();
+        }
+
+        @Override
+        public Object next() {
+            return enumeration.nextElement();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private final int bufferSize;
+
+    /**
+     * Create a new IteratorELResolver with a buffer of {@value #DEFAULT_BUFFER_SIZE} elements.
+     */
+    public IteratorELResolver() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create a new IteratorELResolver.
+     * 
+     * @param bufferSize
+     *            number of most recently consumed elements retained per base object
+     */
+    public IteratorELResolver(int bufferSize) {
+        Validate.isTrue(bufferSize > 0, "bufferSize must be positive");
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public Class<?> getCommonPropertyType(ELContext context, Object base) {
+        return isHandled(base) ? Integer.class : null;
+    }
+
+    @Override
+    public Iterator<FeatureDescriptor> getFeatureDescriptors(ELContext context, Object base) {
+        return null;
+    }
+
+    @Override
+    public Class<?> getType(ELContext context, Object base, Object property) throws NullPointerException,
+        PropertyNotFoundException, ELException {
+        final Object element = seek(context, base, property);
+        if (element == OUT_OF_BOUNDS) {
+            throw new PropertyNotFoundException(String.valueOf(property));
+        }
+        return element == NO_ELEMENT ? null : Object.class;
+    }
+
+    /**
+     * Like {@link ListELResolver}, returns {@code null} for an index beyond the end of the source.
+     */
+    @Override
+    public Object getValue(ELContext context, Object base, Object property) throws NullPointerException,
+        PropertyNotFoundException, ELException {
+        final Object result = seek(context, base, property);
+        return result == NO_ELEMENT || result == OUT_OF_BOUNDS ? null : result;
+    }
+
+    @Override
+    public boolean isReadOnly(ELContext context, Object base, Object property) throws NullPointerException,
+        PropertyNotFoundException, ELException {
+        // ignore in case someone else wants to take a crack at it
+        return false;
+    }
+
+    @Override
+    public void setValue(ELContext context, Object base, Object property, Object value) throws NullPointerException,
+        PropertyNotFoundException, PropertyNotWritableException, ELException {
+        // ignore in case someone else wants to take a crack at it
+    }
+
+    /**
+     * Finds the element at the specified index. If this operation succeeds the context will be set as having been
+     * resolved.
+     * 
+     * @param context
+     * @param base
+     * @param property
+     * @return element, {@link #NO_ELEMENT}, or {@link #OUT_OF_BOUNDS}
+     */
+    private Object seek(ELContext context, Object base, Object property) {
+        if (isHandled(base)) {
+            context.setPropertyResolved(true);
+            final int index = toIndex(context, property);
+            if (index >= 0) {
+                return getBuffer(context, base).get(base, index);
+            }
+        }
+        return NO_ELEMENT;
+    }
+
+    private Buffer getBuffer(ELContext context, Object base) {
+        Buffers buffers = UEL.getContext(context, Buffers.class);
+        if (buffers == null) {
+            buffers = new Buffers();
+            context.putContext(Buffers.class, buffers);
+        }
+        Buffer result = buffers.get(base);
+        if (result == null) {
+            result = new Buffer(isStream(base) ? iterator(base) : null, bufferSize);
+            buffers.put(base, result);
+        }
+        return result;
+    }
+
+    private static boolean isHandled(Object base) {
+        return base instanceof Iterator<?> || base instanceof Enumeration<?> || isStream(base);
+    }
+
+    private static boolean isStream(Object base) {
+        return BASE_STREAM != null && BASE_STREAM.isInstance(base);
+    }
+
+    private static Iterator<?> iterator(Object base) {
+        if (base instanceof Iterator<?>) {
+            return (Iterator<?>) base;
+        }
+        if (base instanceof Enumeration<?>) {
+            return new EnumerationIterator((Enumeration<?>) base);
+        }
+        try {
+            return (Iterator<?>) BASE_STREAM_ITERATOR.invoke(base);
+        } catch (InvocationTargetException e) {
+            throw new ELException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new ELException(e);
+        }
+    }
+
+    private static int toIndex(ELContext context, Object property) {
+        try {
+            return UEL.coerceToType(context, Integer.class, property).intValue();
+        } catch (ELException e) {
+            throw new IllegalArgumentException(String.valueOf(property));
+        }
+    }
+
+    /**
+     * Streams are not available before Java 8, so look up {@code BaseStream.iterator()} reflectively.
+     */
+    private static Method findBaseStreamIterator() {
+        try {
+            return Class.forName("java.util.stream.BaseStream").getMethod("iterator");
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
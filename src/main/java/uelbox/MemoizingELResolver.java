@@ -0,0 +1,169 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.ValueExpression;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * {@link ELResolverWrapper} that memoizes the values read by {@link #getValue(ELContext, Object, Object)} for the
+ * duration of an {@link #evaluate(ELContext, ValueExpression) evaluation}, keyed by base identity and property, so that
+ * a subpath referenced repeatedly by an expression, e.g. {@code base.aList} in
+ * {@code base.aList[base.aList.size() - 1]}, is resolved only once per evaluation. Memoized values are discarded when
+ * the evaluation ends, or upon any {@link #setValue(ELContext, Object, Object, Object)} or
+ * {@link #invoke(ELContext, Object, Object, Class[], Object[])} during it. Reads performed outside of
+ * {@link #evaluate(ELContext, ValueExpression)} are passed through.
+ */
+public class MemoizingELResolver extends ELResolverWrapper {
+    /**
+     * Default maximum number of values memoized per evaluation.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 64;
+
+    /**
+     * Values memoized so far by an evaluation. Expressions read few properties, so a linear scan beats hashing.
+     */
+    private static class Memo {
+        Object[] bases = new Object[8];
+        Object[] properties = new Object[8];
+        Object[] values = new Object[8];
+        int size;
+
+        int indexOf(Object base, Object property) {
+            for (int i = 0; i < size; i++) {
+                if (bases[i] == base && properties[i].equals(property)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void put(Object base, Object property, Object value) {
+            if (size == bases.length) {
+                bases = Arrays.copyOf(bases, size * 2);
+                properties = Arrays.copyOf(properties, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            bases[size] = base;
+            properties[size] = property;
+            values[size++] = value;
+        }
+
+        void clear() {
+            Arrays.fill(bases, 0, size, null);
+            Arrays.fill(properties, 0, size, null);
+            Arrays.fill(values, 0, size, null);
+            size = 0;
+        }
+    }
+
+    private final int maximumSize;
+
+    /**
+     * Create a new MemoizingELResolver memoizing up to {@value #DEFAULT_MAXIMUM_SIZE} values per evaluation.
+     * 
+     * @param wrapped
+     */
+    public MemoizingELResolver(ELResolver wrapped) {
+        this(wrapped, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Create a new MemoizingELResolver.
+     * 
+     * @param wrapped
+     * @param maximumSize
+     *            number of values memoized per evaluation, beyond which further reads are passed through
+     */
+    public MemoizingELResolver(ELResolver wrapped, int maximumSize) {
+        super(wrapped);
+        Validate.isTrue(maximumSize > 0, "maximumSize must be positive");
+        this.maximumSize = maximumSize;
+    }
+
+    @Override
+    public Object getValue(ELContext context, Object base, Object property) {
+        final EvaluationContext evaluation = property == null ? null : EvaluationContext.of(context, this);
+        if (evaluation == null) {
+            return super.getValue(context, base, property);
+        }
+        final Memo memo = (Memo) evaluation.state;
+        // only indexes are equivalent across numeric types; e.g. Map keys 1 and 1L are distinct:
+        final Object key = isIndexed(base) ? DependencySet.normalize(property) : property;
+        final int index = memo.indexOf(base, key);
+        if (index >= 0) {
+            context.setPropertyResolved(true);
+            return memo.values[index];
+        }
+        final Object result = super.getValue(context, base, property);
+        if (context.isPropertyResolved() && memo.size < maximumSize) {
+            memo.put(base, key, result);
+        }
+        return result;
+    }
+
+    @Override
+    public void setValue(ELContext context, Object base, Object property, Object value) {
+        forget(context);
+        super.setValue(context, base, property, value);
+    }
+
+    @Override
+    public Object invoke(ELContext context, Object base, Object method, Class<?>[] paramTypes, Object[] params) {
+        try {
+            return super.invoke(context, base, method, paramTypes, params);
+        } finally {
+            forget(context);
+        }
+    }
+
+    /**
+     * Discard the values memoized by the evaluation, if any, underway in {@code context}; setters and methods alike
+     * may have arbitrary side effects.
+     */
+    private void forget(ELContext context) {
+        final EvaluationContext evaluation = EvaluationContext.of(context, this);
+        if (evaluation != null) {
+            ((Memo) evaluation.state).clear();
+        }
+    }
+
+    /**
+     * Evaluate {@code valueExpression} against {@code context}, whose {@link ELResolver} is bypassed in favor of this
+     * instance. Thread-safe: memoized values are held by an evaluation-scoped {@link ELContext} wrapping
+     * {@code context}.
+     * 
+     * @param context
+     * @param valueExpression
+     * @return Object
+     */
+    public Object evaluate(ELContext context, ValueExpression valueExpression) {
+        Validate.notNull(valueExpression, "valueExpression");
+        final EvaluationContext evaluation = new EvaluationContext(context, this);
+        evaluation.state = new Memo();
+        return valueExpression.getValue(evaluation);
+    }
+
+    private static boolean isIndexed(Object base) {
+        return base instanceof List<?> || base != null && base.getClass().isArray();
+    }
+}
@@ -0,0 +1,465 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * {@link ELResolverWrapper} that records, per base type and {@link Operation}, call counts, resolved/unresolved/failed
+ * outcomes, and a latency histogram of the wrapped {@link ELResolver}. Wrap each member of a resolver chain
+ * individually to break metrics down by resolver. Counters are lock-free; latency is measured for one call in
+ * {@code sampleInterval} per base type and operation, bounding the cost of {@link System#nanoTime()}. Metrics are read
+ * by {@link #snapshot()} and discarded by {@link #reset()}, for polling by whatever monitoring is in use.
+ */
+public class MetricsELResolver extends ELResolverWrapper {
+    /**
+     * Instrumented {@link ELResolver} operations.
+     */
+    public enum Operation {
+        GET_VALUE, SET_VALUE, GET_TYPE, IS_READ_ONLY;
+    }
+
+    /**
+     * Number of latency histogram buckets: bucket {@code i} counts latencies in {@code [2^i, 2^(i+1))} nanoseconds,
+     * the last bucket absorbing any longer.
+     */
+    public static final int HISTOGRAM_BUCKETS = 40;
+
+    private static final int CALLS = 0;
+    private static final int RESOLVED = 1;
+    private static final int FAILED = 2;
+    private static final int SAMPLED = 3;
+    private static final int TOTAL_NANOS = 4;
+    private static final int HISTOGRAM = 5;
+    private static final int SLOTS_PER_OPERATION = HISTOGRAM + HISTOGRAM_BUCKETS;
+
+    /**
+     * Immutable metrics of a single {@link Operation}.
+     */
+    public static final class OperationMetrics {
+        private final long calls;
+        private final long resolved;
+        private final long failed;
+        private final long sampled;
+        private final long totalNanos;
+        private final long[] histogram;
+
+        OperationMetrics(long calls, long resolved, long failed, long sampled, long totalNanos, long[] histogram) {
+            this.calls = calls;
+            this.resolved = resolved;
+            this.failed = failed;
+            this.sampled = sampled;
+            this.totalNanos = totalNanos;
+            this.histogram = histogram;
+        }
+
+        /**
+         * Get the number of calls.
+         * 
+         * @return long
+         */
+        public long getCalls() {
+            return calls;
+        }
+
+        /**
+         * Get the number of calls that resolved the property.
+         * 
+         * @return long
+         */
+        public long getResolved() {
+            return resolved;
+        }
+
+        /**
+         * Get the number of calls that completed without resolving the property.
+         * 
+         * @return long
+         */
+        public long getUnresolved() {
+            return calls - resolved - failed;
+        }
+
+        /**
+         * Get the number of calls that threw an exception.
+         * 
+         * @return long
+         */
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * Get the number of calls whose latency was measured.
+         * 
+         * @return long
+         */
+        public long getSampled() {
+            return sampled;
+        }
+
+        /**
+         * Get the total latency of sampled calls.
+         * 
+         * @return long nanoseconds
+         */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * Get the mean latency of sampled calls.
+         * 
+         * @return double nanoseconds, {@link Double#NaN} if none were sampled
+         */
+        public double getMeanNanos() {
+            return sampled == 0 ? Double.NaN : (double) totalNanos / sampled;
+        }
+
+        /**
+         * Get the latency histogram of sampled calls.
+         * 
+         * @return long[] of {@link MetricsELResolver#HISTOGRAM_BUCKETS} counts
+         */
+        public long[] getHistogram() {
+            return histogram.clone();
+        }
+
+        /**
+         * Get an upper bound of the specified latency percentile of sampled calls, at the resolution of the histogram.
+         * 
+         * @param percentile
+         *            in {@code (0, 100]}
+         * @return long nanoseconds, {@code 0} if none were sampled
+         */
+        public long getPercentileNanos(double percentile) {
+            Validate.isTrue(percentile > 0 && percentile <= 100, "percentile out of range: %s", percentile);
+            final long threshold = (long) Math.ceil(sampled * percentile / 100);
+            long count = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                count += histogram[i];
+                if (count >= threshold && count > 0) {
+                    return (1L << (i + 1)) - 1;
+                }
+            }
+            return 0L;
+        }
+
+        OperationMetrics plus(OperationMetrics other) {
+            final long[] h = histogram.clone();
+            for (int i = 0; i < h.length; i++) {
+                h[i] += other.histogram[i];
+            }
+            return new OperationMetrics(calls + other.calls, resolved + other.resolved, failed + other.failed,
+                sampled + other.sampled, totalNanos + other.totalNanos, h);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("calls=%d, resolved=%d, unresolved=%d, failed=%d, mean=%.1fns, p99<=%dns", calls,
+                resolved, getUnresolved(), failed, getMeanNanos(), getPercentileNanos(99));
+        }
+    }
+
+    /**
+     * Immutable snapshot of the metrics of a {@link MetricsELResolver}.
+     */
+    public static final class Snapshot {
+        private static final OperationMetrics NONE = new OperationMetrics(0, 0, 0, 0, 0, new long[HISTOGRAM_BUCKETS]);
+
+        private final String name;
+        private final Map<Class<?>, Map<Operation, OperationMetrics>> metrics;
+
+        Snapshot(String name, Map<Class<?>, Map<Operation, OperationMetrics>> metrics) {
+            this.name = name;
+            this.metrics = metrics;
+        }
+
+        /**
+         * Get the name of the instrumented resolver.
+         * 
+         * @return String
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the base types encountered, where {@code null} denotes a {@code null} base.
+         * 
+         * @return Set of Class
+         */
+        public Set<Class<?>> getBaseTypes() {
+            return Collections.unmodifiableSet(metrics.keySet());
+        }
+
+        /**
+         * Get the metrics of {@code operation} against bases of {@code baseType}.
+         * 
+         * @param baseType
+         *            {@code null} for a {@code null} base
+         * @param operation
+         * @return OperationMetrics
+         */
+        public OperationMetrics get(Class<?> baseType, Operation operation) {
+            final Map<Operation, OperationMetrics> byOperation = metrics.get(baseType);
+            return byOperation == null ? NONE : byOperation.get(operation);
+        }
+
+        /**
+         * Get the metrics of {@code operation} across all base types.
+         * 
+         * @param operation
+         * @return OperationMetrics
+         */
+        public OperationMetrics getTotal(Operation operation) {
+            OperationMetrics result = NONE;
+            for (Map<Operation, OperationMetrics> byOperation : metrics.values()) {
+                result = result.plus(byOperation.get(operation));
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder buf = new StringBuilder(name);
+            for (Map.Entry<Class<?>, Map<Operation, OperationMetrics>> e : metrics.entrySet()) {
+                for (Map.Entry<Operation, OperationMetrics> o : e.getValue().entrySet()) {
+                    if (o.getValue().getCalls() > 0) {
+                        buf.append(String.format("%n  %s %s: %s", e.getKey() == null ? "null" : e.getKey().getName(),
+                            o.getKey(), o.getValue()));
+                    }
+                }
+            }
+            return buf.toString();
+        }
+    }
+
+    /**
+     * Lock-free counters for a single base type.
+     */
+    private static class Counters {
+        final AtomicLongArray slots = new AtomicLongArray(Operation.values().length * SLOTS_PER_OPERATION);
+
+        long begin(Operation operation, int sampleInterval) {
+            final long call = slots.getAndIncrement(operation.ordinal() * SLOTS_PER_OPERATION + CALLS);
+            return call % sampleInterval == 0 ? System.nanoTime() : -1L;
+        }
+
+        void end(Operation operation, long start, boolean completed, boolean resolved) {
+            final int offset = operation.ordinal() * SLOTS_PER_OPERATION;
+            if (!completed) {
+                slots.incrementAndGet(offset + FAILED);
+            } else if (resolved) {
+                slots.incrementAndGet(offset + RESOLVED);
+            }
+            if (start >= 0L) {
+                final long elapsed = Math.max(0L, System.nanoTime() - start);
+                slots.incrementAndGet(offset + SAMPLED);
+                slots.addAndGet(offset + TOTAL_NANOS, elapsed);
+                final int bucket = elapsed == 0L ? 0 : Math.min(HISTOGRAM_BUCKETS - 1, 63 - Long.numberOfLeadingZeros(
+                    elapsed));
+                slots.incrementAndGet(offset + HISTOGRAM + bucket);
+            }
+        }
+
+        boolean isUsed() {
+            for (Operation operation : Operation.values()) {
+                if (slots.get(operation.ordinal() * SLOTS_PER_OPERATION + CALLS) > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Map<Operation, OperationMetrics> read() {
+            final Map<Operation, OperationMetrics> result = new EnumMap<Operation, OperationMetrics>(Operation.class);
+            for (Operation operation : Operation.values()) {
+                final int offset = operation.ordinal() * SLOTS_PER_OPERATION;
+                final long[] histogram = new long[HISTOGRAM_BUCKETS];
+                for (int i = 0; i < histogram.length; i++) {
+                    histogram[i] = slots.get(offset + HISTOGRAM + i);
+                }
+                result.put(operation, new OperationMetrics(slots.get(offset + CALLS), slots.get(offset + RESOLVED),
+                    slots.get(offset + FAILED), slots.get(offset + SAMPLED), slots.get(offset + TOTAL_NANOS),
+                    histogram));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Counters by base type. Types visible to uelbox's own class loader are held strongly; others weakly, so as not to
+     * pin their class loaders, and without locking.
+     */
+    private static class Table {
+        final Counters nullBase = new Counters();
+        final ClassMap<Counters> counters = new ClassMap<Counters>();
+
+        Counters get(Object base) {
+            if (base == null) {
+                return nullBase;
+            }
+            final Class<?> type = base.getClass();
+            Counters result = counters.get(type);
+            if (result == null) {
+                result = new Counters();
+                final Counters raced = counters.putIfAbsent(type, result);
+                if (raced != null) {
+                    result = raced;
+                }
+            }
+            return result;
+        }
+
+        Map<Class<?>, Map<Operation, OperationMetrics>> read() {
+            final Map<Class<?>, Map<Operation, OperationMetrics>> result =
+                new HashMap<Class<?>, Map<Operation, OperationMetrics>>();
+            if (nullBase.isUsed()) {
+                result.put(null, nullBase.read());
+            }
+            for (Map.Entry<Class<?>, Counters> e : counters.toMap().entrySet()) {
+                result.put(e.getKey(), e.getValue().read());
+            }
+            return result;
+        }
+    }
+
+    private final String name;
+    private final int sampleInterval;
+    private volatile Table table = new Table();
+
+    /**
+     * Create a new MetricsELResolver named for the class of the wrapped {@link ELResolver}, measuring the latency of
+     * every call.
+     * 
+     * @param wrapped
+     */
+    public MetricsELResolver(ELResolver wrapped) {
+        this(wrapped, wrapped.getClass().getName(), 1);
+    }
+
+    /**
+     * Create a new MetricsELResolver.
+     * 
+     * @param wrapped
+     * @param name
+     *            reported by {@link Snapshot#getName()}
+     * @param sampleInterval
+     *            measure the latency of one in this many calls per base type and operation
+     */
+    public MetricsELResolver(ELResolver wrapped, String name, int sampleInterval) {
+        super(wrapped);
+        this.name = Validate.notNull(name, "name");
+        Validate.isTrue(sampleInterval > 0, "sampleInterval must be positive");
+        this.sampleInterval = sampleInterval;
+    }
+
+    @Override
+    public Class<?> getType(ELContext context, Object base, Object property) {
+        final Counters counters = table.get(base);
+        final long start = counters.begin(Operation.GET_TYPE, sampleInterval);
+        boolean completed = false;
+        try {
+            final Class<?> result = super.getType(context, base, property);
+            completed = true;
+            return result;
+        } finally {
+            counters.end(Operation.GET_TYPE, start, completed, context.isPropertyResolved());
+        }
+    }
+
+    @Override
+    public Object getValue(ELContext context, Object base, Object property) {
+        final Counters counters = table.get(base);
+        final long start = counters.begin(Operation.GET_VALUE, sampleInterval);
+        boolean completed = false;
+        try {
+            final Object result = super.getValue(context, base, property);
+            completed = true;
+            return result;
+        } finally {
+            counters.end(Operation.GET_VALUE, start, completed, context.isPropertyResolved());
+        }
+    }
+
+    @Override
+    public boolean isReadOnly(ELContext context, Object base, Object property) {
+        final Counters counters = table.get(base);
+        final long start = counters.begin(Operation.IS_READ_ONLY, sampleInterval);
+        boolean completed = false;
+        try {
+            final boolean result = super.isReadOnly(context, base, property);
+            completed = true;
+            return result;
+        } finally {
+            counters.end(Operation.IS_READ_ONLY, start, completed, context.isPropertyResolved());
+        }
+    }
+
+    @Override
+    public void setValue(ELContext context, Object base, Object property, Object value) {
+        final Counters counters = table.get(base);
+        final long start = counters.begin(Operation.SET_VALUE, sampleInterval);
+        boolean completed = false;
+        try {
+            super.setValue(context, base, property, value);
+            completed = true;
+        } finally {
+            counters.end(Operation.SET_VALUE, start, completed, context.isPropertyResolved());
+        }
+    }
+
+    /**
+     * Get the name of this MetricsELResolver.
+     * 
+     * @return String
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get a snapshot of the metrics recorded since creation or the last {@link #reset()}. Counters are read
+     * individually, so a snapshot taken under load is not necessarily consistent across counters.
+     * 
+     * @return Snapshot
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(name, table.read());
+    }
+
+    /**
+     * Discard the metrics recorded so far, returning them.
+     * 
+     * @return Snapshot of the discarded metrics
+     */
+    public Snapshot reset() {
+        final Table previous = table;
+        table = new Table();
+        return new Snapshot(name, previous.read());
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.PropertyNotFoundException;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * {@link ELResolverWrapper} that remembers, per base object class and property, the operations its wrapped
+ * {@link ELResolver} declined to resolve or failed with a {@link PropertyNotFoundException}, and thereafter answers
+ * those operations itself without consulting the wrapped resolver. A remembered failure is replayed by throwing a new
+ * {@link PropertyNotFoundException} bearing the original message, whose stack trace is not filled in. Only properties
+ * of types loaded by the bootstrap {@link ClassLoader}, e.g. {@link String}s and boxed primitives, are considered;
+ * misses are bounded in number per base class, evicting approximately least recently used properties first, and are
+ * held weakly where the base class may be discarded before this resolver. Neither lookups nor replays take a lock. The
+ * wrapped resolver's misses must be determined by the base object's class and the property alone: e.g. a bean
+ * resolver qualifies, whereas a resolver whose misses depend on the size of a collection does not.
+ */
+public class NegativeCachingELResolver extends ELResolverWrapper {
+    private static final int DEFAULT_MAXIMUM_SIZE_PER_CLASS = 256;
+
+    private static final int GET_VALUE = 0;
+    private static final int GET_TYPE = 1;
+    private static final int IS_READ_ONLY = 2;
+    private static final int SET_VALUE = 3;
+    private static final int OPERATIONS = 4;
+
+    /**
+     * Recorded for an operation that the wrapped resolver declined.
+     */
+    private static final Object UNRESOLVED = new Object();
+
+    /**
+     * {@link PropertyNotFoundException} thrown to replay a remembered failure.
+     */
+    private static class CachedPropertyNotFoundException extends PropertyNotFoundException {
+        private static final long serialVersionUID = 1L;
+
+        CachedPropertyNotFoundException(String message) {
+            super(message);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * Immutable outcome of each operation for a single property, plus a "second chance" flag by which eviction
+     * approximates LRU order: set when replayed, cleared when passed over by eviction.
+     */
+    private static class Outcomes {
+        final Object[] byOperation;
+        volatile boolean referenced;
+
+        Outcomes(Object[] byOperation) {
+            this.byOperation = byOperation;
+        }
+    }
+
+    private final int maximumSizePerClass;
+
+    /**
+     * Per base class, per property, the {@link Outcomes} of its misses.
+     */
+    private final ClassMap<ConcurrentMap<Object, Outcomes>> missesByClass =
+        new ClassMap<ConcurrentMap<Object, Outcomes>>();
+
+    /**
+     * Create a new NegativeCachingELResolver.
+     * 
+     * @param wrapped
+     */
+    public NegativeCachingELResolver(ELResolver wrapped) {
+        this(wrapped, DEFAULT_MAXIMUM_SIZE_PER_CLASS);
+    }
+
+    /**
+     * Create a new NegativeCachingELResolver.
+     * 
+     * @param wrapped
+     * @param maximumSizePerClass
+     *            maximum number of properties for which misses are remembered per base class
+     */
+    public NegativeCachingELResolver(ELResolver wrapped, int maximumSizePerClass) {
+        super(wrapped);
+        Validate.isTrue(maximumSizePerClass > 0, "maximumSizePerClass must be > 0");
+        this.maximumSizePerClass = maximumSizePerClass;
+    }
+
+    @Override
+    public Object getValue(ELContext context, Object base, Object property) {
+        if (replay(context, base, property, GET_VALUE)) {
+            return null;
+        }
+        try {
+            final Object result = super.getValue(context, base, property);
+            if (!context.isPropertyResolved()) {
+                record(base, property, GET_VALUE, UNRESOLVED);
+            }
+            return result;
+        } catch (PropertyNotFoundException e) {
+            record(base, property, GET_VALUE, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Class<?> getType(ELContext context, Object base, Object property) {
+        if (replay(context, base, property, GET_TYPE)) {
+            return null;
+        }
+        try {
+            final Class<?> result = super.getType(context, base, property);
+            if (!context.isPropertyResolved()) {
+                record(base, property, GET_TYPE, UNRESOLVED);
+            }
+            return result;
+        } catch (PropertyNotFoundException e) {
+            record(base, property, GET_TYPE, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean isReadOnly(ELContext context, Object base, Object property) {
+        if (replay(context, base, property, IS_READ_ONLY)) {
+            return false;
+        }
+        try {
+            final boolean result = super.isReadOnly(context, base, property);
+            if (!context.isPropertyResolved()) {
+                record(base, property, IS_READ_ONLY, UNRESOLVED);
+            }
+            return result;
+        } catch (PropertyNotFoundException e) {
+            record(base, property, IS_READ_ONLY, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void setValue(ELContext context, Object base, Object property, Object value) {
+        if (replay(context, base, property, SET_VALUE)) {
+            return;
+        }
+        try {
+            super.setValue(context, base, property, value);
+            if (!context.isPropertyResolved()) {
+                record(base, property, SET_VALUE, UNRESOLVED);
+            }
+        } catch (PropertyNotFoundException e) {
+            record(base, property, SET_VALUE, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Forget all remembered misses, e.g. after the wrapped resolver has been reconfigured.
+     */
+    public void clear() {
+        missesByClass.clear();
+    }
+
+    /**
+     * Replay a remembered miss, if any.
+     * 
+     * @return whether a miss was replayed
+     * @throws PropertyNotFoundException
+     *             if that is the remembered miss
+     */
+    private boolean replay(ELContext context, Object base, Object property, int operation) {
+        if (!isCacheable(base, property)) {
+            return false;
+        }
+        final ConcurrentMap<Object, Outcomes> misses = missesByClass.get(base.getClass());
+        if (misses == null) {
+            return false;
+        }
+        final Outcomes outcomes = misses.get(property);
+        final Object outcome = outcomes == null ? null : outcomes.byOperation[operation];
+        if (outcome == null) {
+            return false;
+        }
+        if (!outcomes.referenced) {
+            // write only when changed, so that replays do not contend over the flag:
+            outcomes.referenced = true;
+        }
+        context.setPropertyResolved(false);
+        if (outcome != UNRESOLVED) {
+            throw new CachedPropertyNotFoundException((String) outcome);
+        }
+        return true;
+    }
+
+    private void record(Object base, Object property, int operation, Object outcome) {
+        if (!isCacheable(base, property)) {
+            return;
+        }
+        final Object replayable =
+            outcome instanceof PropertyNotFoundException ? StringUtils.defaultString(
+                ((PropertyNotFoundException) outcome).getMessage()) : outcome;
+
+        final ConcurrentMap<Object, Outcomes> misses = getMisses(base.getClass());
+        final Outcomes previous = misses.get(property);
+        final Object[] byOperation = previous == null ? new Object[OPERATIONS] : previous.byOperation.clone();
+        byOperation[operation] = replayable;
+        // copy on write; a concurrently recorded outcome for another operation may be lost, and simply recorded again
+        // upon its next miss:
+        if (misses.put(property, new Outcomes(byOperation)) == null && misses.size() > maximumSizePerClass) {
+            evict(misses, property);
+        }
+    }
+
+    private ConcurrentMap<Object, Outcomes> getMisses(Class<?> type) {
+        ConcurrentMap<Object, Outcomes> result = missesByClass.get(type);
+        if (result == null) {
+            result = new ConcurrentHashMap<Object, Outcomes>();
+            final ConcurrentMap<Object, Outcomes> raced = missesByClass.putIfAbsent(type, result);
+            if (raced != null) {
+                result = raced;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Remove entries other than that of the just recorded {@code property} until within bounds, sparing once those
+     * replayed since last considered.
+     */
+    private void evict(ConcurrentMap<Object, Outcomes> misses, Object property) {
+        for (int pass = 0; pass < 2 && misses.size() > maximumSizePerClass; pass++) {
+            for (Iterator<Map.Entry<Object, Outcomes>> it = misses.entrySet().iterator(); it.hasNext()
+                && misses.size() > maximumSizePerClass;) {
+                final Map.Entry<Object, Outcomes> e = it.next();
+                if (e.getKey().equals(property)) {
+                    continue;
+                }
+                if (e.getValue().referenced) {
+                    e.getValue().referenced = false;
+                } else {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private static boolean isCacheable(Object base, Object property) {
+        return base != null && property != null && property.getClass().getClassLoader() == null;
+    }
+}
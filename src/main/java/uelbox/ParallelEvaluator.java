@@ -0,0 +1,169 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.ValueExpression;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Evaluates sets of independent {@link ValueExpression}s in parallel against a common base {@link ELContext}. As
+ * {@link ELContext} implementations are not thread-safe, each worker evaluates against its own {@link Fork}, which
+ * shares the base context's {@link ELResolver}, {@link javax.el.FunctionMapper}, variables and context objects for
+ * reading while keeping resolution status, locale and any modifications to itself. The base context must not be
+ * modified while an evaluation is in progress, and its {@link ELResolver} must tolerate concurrent use, as do those of
+ * {@link SimpleELContext}. A failure to evaluate one expression is recorded as its {@link Result} rather than aborting
+ * the others.
+ */
+public final class ParallelEvaluator {
+    /**
+     * Cheap, single-threaded fork of a base {@link ELContext}.
+     */
+    public static final class Fork extends ELContextWrapper {
+
+        /**
+         * Create a new Fork.
+         * 
+         * @param base
+         */
+        public Fork(ELContext base) {
+            super(base);
+        }
+
+        @Override
+        protected ELResolver wrap(ELResolver elResolver) {
+            return elResolver;
+        }
+    }
+
+    /**
+     * Outcome of evaluating a single {@link ValueExpression}.
+     */
+    public static final class Result {
+        private final ValueExpression expression;
+        private final Object value;
+        private final RuntimeException failure;
+
+        Result(ValueExpression expression, Object value, RuntimeException failure) {
+            this.expression = expression;
+            this.value = value;
+            this.failure = failure;
+        }
+
+        /**
+         * Get the evaluated expression.
+         * 
+         * @return ValueExpression
+         */
+        public ValueExpression getExpression() {
+            return expression;
+        }
+
+        /**
+         * Learn whether evaluation failed.
+         * 
+         * @return boolean
+         */
+        public boolean isFailed() {
+            return failure != null;
+        }
+
+        /**
+         * Get the failure, if any.
+         * 
+         * @return RuntimeException or {@code null}
+         */
+        public RuntimeException getFailure() {
+            return failure;
+        }
+
+        /**
+         * Get the value, rethrowing the failure, if any.
+         * 
+         * @return Object
+         */
+        public Object getValue() {
+            if (failure != null) {
+                throw failure;
+            }
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s -> %s", expression.getExpressionString(), failure == null ? value : failure);
+        }
+    }
+
+    private final ELContext context;
+    private final ExecutorService executor;
+    private final int parallelism;
+
+    /**
+     * Create a new ParallelEvaluator.
+     * 
+     * @param context
+     *            base context
+     * @param executor
+     * @param parallelism
+     *            maximum number of workers per evaluation
+     */
+    public ParallelEvaluator(ELContext context, ExecutorService executor, int parallelism) {
+        this.context = Validate.notNull(context, "context");
+        this.executor = Validate.notNull(executor, "executor");
+        Validate.isTrue(parallelism > 0, "parallelism must be positive");
+        this.parallelism = parallelism;
+        // register the ExpressionFactory against the base context now, rather than per fork:
+        UEL.getExpressionFactory(context);
+    }
+
+    /**
+     * Evaluate {@code expressions}, split into contiguous chunks each evaluated against its own {@link Fork}.
+     * 
+     * @param expressions
+     * @return List of {@link Result}, in order
+     */
+    public List<Result> evaluateAll(List<? extends ValueExpression> expressions) {
+        Validate.noNullElements(expressions, "expressions");
+        final ValueExpression[] input = expressions.toArray(new ValueExpression[expressions.size()]);
+        final Result[] results = new Result[input.length];
+        Chunks.run(executor, parallelism, input.length, new Chunks.Task() {
+
+            @Override
+            public void run(int from, int to) {
+                final Fork fork = new Fork(context);
+                for (int i = from; i < to; i++) {
+                    results[i] = evaluate(fork, input[i]);
+                }
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    private static Result evaluate(ELContext fork, ValueExpression expression) {
+        try {
+            return new Result(expression, expression.getValue(fork), null);
+        } catch (RuntimeException e) {
+            return new Result(expression, null, e);
+        }
+    }
+}
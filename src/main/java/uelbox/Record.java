@@ -0,0 +1,114 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import javax.el.PropertyNotFoundException;
+
+/**
+ * Movable view of a single record of a {@link RecordBuffer}, whose fields are resolved by {@link RecordELResolver}.
+ * Like any cursor, an instance is not thread-safe.
+ */
+public final class Record {
+    private final RecordBuffer owner;
+    private int index;
+    private int offset;
+
+    Record(RecordBuffer owner) {
+        this.owner = owner;
+        this.offset = owner.size() == 0 ? -1 : owner.offsetOf(0);
+    }
+
+    /**
+     * Get the {@link RecordBuffer} this record belongs to.
+     * 
+     * @return RecordBuffer
+     */
+    public RecordBuffer getOwner() {
+        return owner;
+    }
+
+    /**
+     * Get the index of the current record.
+     * 
+     * @return int
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Move to the record at {@code index}.
+     * 
+     * @param index
+     * @return this
+     * @throws IndexOutOfBoundsException
+     */
+    public Record moveTo(int index) {
+        offset = owner.offsetOf(index);
+        this.index = index;
+        return this;
+    }
+
+    /**
+     * Move to the next record, if any.
+     * 
+     * @return whether there was a next record
+     */
+    public boolean next() {
+        if (index + 1 >= owner.size()) {
+            return false;
+        }
+        moveTo(index + 1);
+        return true;
+    }
+
+    /**
+     * Read field {@code name} of the current record.
+     * 
+     * @param name
+     * @return value
+     * @throws PropertyNotFoundException
+     *             if there is no such field
+     */
+    public Object get(String name) {
+        return read(name);
+    }
+
+    Object read(Object name) {
+        final RecordSchema.Field field = owner.getSchema().getField(name);
+        if (field == null) {
+            throw new PropertyNotFoundException(String.valueOf(name));
+        }
+        if (offset < 0) {
+            throw new IndexOutOfBoundsException("empty RecordBuffer");
+        }
+        return field.type.read(owner.getBuffer(), offset + field.offset);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buf = new StringBuilder("Record[").append(index).append("]{");
+        boolean first = true;
+        for (String name : owner.getSchema().getFieldNames()) {
+            if (!first) {
+                buf.append(", ");
+            }
+            first = false;
+            buf.append(name).append('=').append(offset < 0 ? null : read(name));
+        }
+        return buf.append('}').toString();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.nio.ByteBuffer;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Fixed-size binary records laid out contiguously in a {@link ByteBuffer} (e.g. a
+ * {@link java.nio.MappedByteBuffer} over a file) per a {@link RecordSchema}. Records are accessed in place: reading a
+ * field reads only its bytes, and the buffer's position and limit are unaffected.
+ */
+public final class RecordBuffer {
+    private final RecordSchema schema;
+    private final ByteBuffer buffer;
+    private final int start;
+    private final int size;
+
+    /**
+     * Create a new RecordBuffer over the {@link ByteBuffer#remaining() remaining} bytes of {@code buffer}.
+     * 
+     * @param schema
+     * @param buffer
+     */
+    public RecordBuffer(RecordSchema schema, ByteBuffer buffer) {
+        this.schema = Validate.notNull(schema, "schema");
+        Validate.notNull(buffer, "buffer");
+        Validate.isTrue(schema.getRecordSize() > 0, "empty schema");
+        this.buffer = buffer.duplicate().order(schema.getOrder());
+        this.start = buffer.position();
+        this.size = buffer.remaining() / schema.getRecordSize();
+    }
+
+    /**
+     * Get the schema.
+     * 
+     * @return RecordSchema
+     */
+    public RecordSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Get the number of (complete) records.
+     * 
+     * @return int
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get a {@link Record} positioned at {@code index}.
+     * 
+     * @param index
+     * @return Record
+     * @throws IndexOutOfBoundsException
+     */
+    public Record get(int index) {
+        final Record result = new Record(this);
+        result.moveTo(index);
+        return result;
+    }
+
+    /**
+     * Get a {@link Record} positioned at the first record, which may be moved across this buffer by
+     * {@link Record#moveTo(int)} so that a scan allocates no object per record.
+     * 
+     * @return Record
+     */
+    public Record cursor() {
+        return new Record(this);
+    }
+
+    ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    int offsetOf(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("record %d of %d", index, size));
+        }
+        return start + index * schema.getRecordSize();
+    }
+}
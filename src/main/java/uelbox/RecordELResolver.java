@@ -0,0 +1,117 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.beans.FeatureDescriptor;
+import java.util.Iterator;
+
+import javax.el.ELContext;
+import javax.el.ELException;
+import javax.el.ELResolver;
+import javax.el.PropertyNotFoundException;
+import javax.el.PropertyNotWritableException;
+
+/**
+ * Read-only {@link ELResolver} for binary records: resolves the fields of a {@link Record} by name, reading them in
+ * place from the underlying buffer, and indexes a {@link RecordBuffer} in the manner of
+ * {@link javax.el.ListELResolver}. Evaluating e.g. {@code #{rec.price > 100}} against a {@link Record} moved across a
+ * buffer by {@link Record#moveTo(int)} thus reads only the bytes of {@code price}, allocating at most the wrapper
+ * object the {@link ELResolver} API requires (which escape analysis may elide); indexing a {@link RecordBuffer}
+ * allocates a {@link Record} view.
+ */
+public class RecordELResolver extends ELResolver {
+
+    @Override
+    public Class<?> getCommonPropertyType(ELContext context, Object base) {
+        if (base instanceof Record) {
+            return String.class;
+        }
+        return base instanceof RecordBuffer ? Integer.class : null;
+    }
+
+    @Override
+    public Iterator<FeatureDescriptor> getFeatureDescriptors(ELContext context, Object base) {
+        return null;
+    }
+
+    @Override
+    public Class<?> getType(ELContext context, Object base, Object property) throws NullPointerException,
+        PropertyNotFoundException, ELException {
+        if (base instanceof Record) {
+            context.setPropertyResolved(true);
+            final RecordSchema.Field field = ((Record) base).getOwner().getSchema().getField(property);
+            if (field == null) {
+                throw new PropertyNotFoundException(String.valueOf(property));
+            }
+            return field.type.getJavaType();
+        }
+        if (base instanceof RecordBuffer) {
+            context.setPropertyResolved(true);
+            final int index = toIndex(context, property);
+            if (index < 0 || index >= ((RecordBuffer) base).size()) {
+                throw new PropertyNotFoundException(String.valueOf(property));
+            }
+            return Record.class;
+        }
+        return null;
+    }
+
+    /**
+     * Like {@link javax.el.ListELResolver}, returns {@code null} for an illegal {@link RecordBuffer} index.
+     */
+    @Override
+    public Object getValue(ELContext context, Object base, Object property) throws NullPointerException,
+        PropertyNotFoundException, ELException {
+        if (base instanceof Record) {
+            context.setPropertyResolved(true);
+            return ((Record) base).read(property);
+        }
+        if (base instanceof RecordBuffer) {
+            context.setPropertyResolved(true);
+            final RecordBuffer records = (RecordBuffer) base;
+            final int index = toIndex(context, property);
+            return index < 0 || index >= records.size() ? null : records.get(index);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isReadOnly(ELContext context, Object base, Object property) throws NullPointerException,
+        PropertyNotFoundException, ELException {
+        if (base instanceof Record || base instanceof RecordBuffer) {
+            context.setPropertyResolved(true);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void setValue(ELContext context, Object base, Object property, Object value) throws NullPointerException,
+        PropertyNotFoundException, PropertyNotWritableException, ELException {
+        if (base instanceof Record || base instanceof RecordBuffer) {
+            context.setPropertyResolved(true);
+            throw new PropertyNotWritableException(String.valueOf(property));
+        }
+    }
+
+    private static int toIndex(ELContext context, Object property) {
+        try {
+            return UEL.coerceToType(context, Integer.class, property).intValue();
+        } catch (ELException e) {
+            throw new IllegalArgumentException(String.valueOf(property));
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Immutable layout of a fixed-size binary record: named fields of primitive {@link FieldType}s at fixed offsets, in a
+ * given {@link ByteOrder}.
+ * 
+ * @see RecordBuffer
+ * @see RecordELResolver
+ */
+public final class RecordSchema {
+    /**
+     * Primitive field types, read by absolute index so as to leave buffer positions untouched.
+     */
+    public enum FieldType {
+        BYTE(Byte.class, 1) {
+
+            @Override
+            Object read(ByteBuffer buffer, int index) {
+                return Byte.valueOf(buffer.get(index));
+            }
+        },
+        BOOLEAN(Boolean.class, 1) {
+
+            @Override
+            Object read(ByteBuffer buffer, int index) {
+                return Boolean.valueOf(buffer.get(index) != 0);
+            }
+        },
+        SHORT(Short.class, 2) {
+
+            @Override
+            Object read(ByteBuffer buffer, int index) {
+                return Short.valueOf(buffer.getShort(index));
+            }
+        },
+        CHAR(Character.class, 2) {
+
+            @Override
+            Object read(ByteBuffer buffer, int index) {
+                return Character.valueOf(buffer.getChar(index));
+            }
+        },
+        INT(Integer.class, 4) {
+
+            @Override
+            Object read(ByteBuffer buffer, int index) {
+                return Integer.valueOf(buffer.getInt(index));
+            }
+        },
+        FLOAT(Float.class, 4) {
+
+            @Override
+            Object read(ByteBuffer buffer, int index) {
+                return Float.valueOf(buffer.getFloat(index));
+            }
+        },
+        LONG(Long.class, 8) {
+
+            @Override
+            Object read(ByteBuffer buffer, int index) {
+                return Long.valueOf(buffer.getLong(index));
+            }
+        },
+        DOUBLE(Double.class, 8) {
+
+            @Override
+            Object read(ByteBuffer buffer, int index) {
+                return Double.valueOf(buffer.getDouble(index));
+            }
+        };
+
+        private final Class<?> javaType;
+        private final int size;
+
+        private FieldType(Class<?> javaType, int size) {
+            this.javaType = javaType;
+            this.size = size;
+        }
+
+        /**
+         * Get the (wrapper) type of values of this field type.
+         * 
+         * @return Class
+         */
+        public Class<?> getJavaType() {
+            return javaType;
+        }
+
+        /**
+         * Get the size of this field type.
+         * 
+         * @return int bytes
+         */
+        public int getSize() {
+            return size;
+        }
+
+        abstract Object read(ByteBuffer buffer, int index);
+    }
+
+    /**
+     * A field of a {@link RecordSchema}.
+     */
+    static final class Field {
+        final String name;
+        final FieldType type;
+        final int offset;
+
+        Field(String name, FieldType type, int offset) {
+            this.name = name;
+            this.type = type;
+            this.offset = offset;
+        }
+    }
+
+    private final ByteOrder order;
+    private final Map<String, Field> fields;
+    private final int recordSize;
+
+    private RecordSchema(ByteOrder order, Map<String, Field> fields, int recordSize) {
+        this.order = order;
+        this.fields = fields;
+        this.recordSize = recordSize;
+    }
+
+    /**
+     * Get an empty schema in the specified byte order, to which fields may be added by {@link #with(String, FieldType)}
+     * and {@link #with(String, FieldType, int)}.
+     * 
+     * @param order
+     * @return RecordSchema
+     */
+    public static RecordSchema of(ByteOrder order) {
+        return new RecordSchema(Validate.notNull(order, "order"), Collections.<String, Field> emptyMap(), 0);
+    }
+
+    /**
+     * Get a schema having the fields of this one plus {@code name}, immediately following the end of the record.
+     * 
+     * @param name
+     * @param type
+     * @return RecordSchema
+     */
+    public RecordSchema with(String name, FieldType type) {
+        return with(name, type, recordSize);
+    }
+
+    /**
+     * Get a schema having the fields of this one plus {@code name} at {@code offset}; the record size grows as needed
+     * to accommodate the field. Fields may overlap.
+     * 
+     * @param name
+     * @param type
+     * @param offset
+     * @return RecordSchema
+     */
+    public RecordSchema with(String name, FieldType type, int offset) {
+        Validate.notBlank(name, "name");
+        Validate.notNull(type, "type");
+        Validate.isTrue(offset >= 0, "negative offset");
+        Validate.isTrue(!fields.containsKey(name), "duplicate field %s", name);
+        final Map<String, Field> newFields = new LinkedHashMap<String, Field>(fields);
+        newFields.put(name, new Field(name, type, offset));
+        return new RecordSchema(order, Collections.unmodifiableMap(newFields), Math.max(recordSize, offset
+            + type.getSize()));
+    }
+
+    /**
+     * Get a schema having the fields of this one, padded to {@code recordSize} bytes.
+     * 
+     * @param recordSize
+     * @return RecordSchema
+     */
+    public RecordSchema withRecordSize(int recordSize) {
+        Validate.isTrue(recordSize >= this.recordSize, "record size %d truncates fields", recordSize);
+        return new RecordSchema(order, fields, recordSize);
+    }
+
+    /**
+     * Get the byte order.
+     * 
+     * @return ByteOrder
+     */
+    public ByteOrder getOrder() {
+        return order;
+    }
+
+    /**
+     * Get the record size.
+     * 
+     * @return int bytes
+     */
+    public int getRecordSize() {
+        return recordSize;
+    }
+
+    /**
+     * Get the field names, in order of declaration.
+     * 
+     * @return unmodifiable Set of String
+     */
+    public Set<String> getFieldNames() {
+        return fields.keySet();
+    }
+
+    /**
+     * Get the type of field {@code name}.
+     * 
+     * @param name
+     * @return FieldType or {@code null}
+     */
+    public FieldType getFieldType(String name) {
+        final Field field = fields.get(name);
+        return field == null ? null : field.type;
+    }
+
+    Field getField(Object name) {
+        return fields.get(name);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import javax.el.ValueExpression;
+import javax.el.VariableMapper;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * {@link VariableMapper} organized as a stack of frames: variables set after {@link #pushFrame()} shadow same-named
+ * variables of enclosing frames until the matching {@link #popFrame()}, and setting a variable already set in the
+ * current frame replaces it in place. Variables are held in flat arrays searched from the innermost frame outward,
+ * so that e.g. a loop binding a variable per iteration within a single frame allocates nothing beyond the bound
+ * {@link ValueExpression}s; lookups are linear in the number of visible variables, which suits the modest numbers
+ * typical of EL evaluation. Variables not found are resolved against an optional parent {@link VariableMapper}. Not
+ * thread-safe.
+ */
+public class ScopedVariableMapper extends VariableMapper {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final VariableMapper parent;
+    private String[] names = new String[INITIAL_CAPACITY];
+    private ValueExpression[] values = new ValueExpression[INITIAL_CAPACITY];
+    private int size;
+    private int[] frames = new int[INITIAL_CAPACITY];
+    private int depth;
+
+    /**
+     * Create a new ScopedVariableMapper without a parent.
+     */
+    public ScopedVariableMapper() {
+        this(null);
+    }
+
+    /**
+     * Create a new ScopedVariableMapper.
+     * 
+     * @param parent
+     *            consulted for variables not set on this mapper, if not {@code null}
+     */
+    public ScopedVariableMapper(VariableMapper parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Begin a new frame.
+     */
+    public void pushFrame() {
+        if (depth == frames.length) {
+            final int[] newFrames = new int[depth * 2];
+            System.arraycopy(frames, 0, newFrames, 0, depth);
+            frames = newFrames;
+        }
+        frames[depth++] = size;
+    }
+
+    /**
+     * Discard the variables of the current frame, unshadowing any they hid.
+     * 
+     * @throws IllegalStateException
+     *             if no frame has been pushed
+     */
+    public void popFrame() {
+        Validate.validState(depth > 0, "no frame to pop");
+        final int start = frames[--depth];
+        for (int i = start; i < size; i++) {
+            names[i] = null;
+            values[i] = null;
+        }
+        size = start;
+    }
+
+    /**
+     * Get the number of frames pushed and not yet popped.
+     * 
+     * @return int
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Learn whether {@code variable} is set on this mapper, in any frame, irrespective of the parent mapper.
+     * 
+     * @param variable
+     * @return boolean
+     */
+    public boolean containsVariable(String variable) {
+        return indexOf(variable, 0) >= 0;
+    }
+
+    @Override
+    public ValueExpression resolveVariable(String variable) {
+        final int index = indexOf(variable, 0);
+        if (index >= 0) {
+            return values[index];
+        }
+        return parent == null ? null : parent.resolveVariable(variable);
+    }
+
+    /**
+     * Set {@code variable} in the current frame. A {@code null} {@code expression} hides any same-named variable of
+     * an enclosing frame or of the parent mapper.
+     * 
+     * @param variable
+     * @param expression
+     * @return the value {@code variable} resolved to beforehand
+     */
+    @Override
+    public ValueExpression setVariable(String variable, ValueExpression expression) {
+        final int frameStart = depth == 0 ? 0 : frames[depth - 1];
+        final int index = indexOf(variable, frameStart);
+        if (index >= 0) {
+            final ValueExpression result = values[index];
+            values[index] = expression;
+            return result;
+        }
+        final ValueExpression result = resolveVariable(variable);
+        if (size == names.length) {
+            final String[] newNames = new String[size * 2];
+            final ValueExpression[] newValues = new ValueExpression[size * 2];
+            System.arraycopy(names, 0, newNames, 0, size);
+            System.arraycopy(values, 0, newValues, 0, size);
+            names = newNames;
+            values = newValues;
+        }
+        names[size] = variable;
+        values[size++] = expression;
+        return result;
+    }
+
+    /**
+     * Discard all frames and variables.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            names[i] = null;
+            values[i] = null;
+        }
+        size = 0;
+        depth = 0;
+    }
+
+    /**
+     * Find the innermost index at or above {@code floor} at which {@code variable} is set.
+     */
+    private int indexOf(String variable, int floor) {
+        for (int i = size - 1; i >= floor; i--) {
+            final String name = names[i];
+            if (name == variable || variable != null && variable.equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -17,8 +17,6 @@ package uelbox;
 
 import java.lang.reflect.Method;
 import javax.el.ArrayELResolver;
-import javax.el.BeanELResolver;
-import javax.el.CompositeELResolver;
 import javax.el.ELContext;
 import javax.el.ELResolver;
 import javax.el.FunctionMapper;
@@ -28,24 +26,27 @@ import javax.el.ResourceBundleELResolver;
 import javax.el.VariableMapper;
 
 /**
- * Simple ELContext implementation.
+ * Simple ELContext implementation. Properties are resolved by a {@link DispatchingELResolver} over the standard array,
+ * {@link java.util.List}, {@link java.util.Map} and {@link java.util.ResourceBundle} resolvers plus a
+ * {@link TupleELResolver} and a {@link BeanPropertyELResolver}. Each instance has its own such resolver, to which
+ * further delegates may be added, but all instances share the routes learned by their resolvers until then.
  */
 public class SimpleELContext extends ELContext {
+    /**
+     * Prototype of the {@link ELResolver} of each instance, by which routes learned by any instance benefit the others.
+     */
+    private static final DispatchingELResolver PROTOTYPE = new DispatchingELResolver(new ArrayELResolver(false),
+        new ListELResolver(false), new MapELResolver(false), new ResourceBundleELResolver(), new TupleELResolver(false),
+        new BeanPropertyELResolver(false));
+
     private final FunctionMapper functionMapper = new FunctionMapper() {
         @Override
         public Method resolveFunction(String prefix, String localName) {
             return null;
         }
     };
-    private final VariableMapper variableMapper = new SimpleVariableMapper();
-    private final CompositeELResolver elResolver = new CompositeELResolver();
-    {
-        elResolver.add(new ArrayELResolver(false));
-        elResolver.add(new ListELResolver(false));
-        elResolver.add(new MapELResolver(false));
-        elResolver.add(new ResourceBundleELResolver());
-        elResolver.add(new BeanELResolver(false));
-    }
+    private final ScopedVariableMapper variableMapper = new ScopedVariableMapper();
+    private final DispatchingELResolver elResolver = new DispatchingELResolver(PROTOTYPE);
 
     @Override
     public ELResolver getELResolver() {
@@ -57,8 +58,21 @@ public class SimpleELContext extends ELContext {
         return functionMapper;
     }
 
+    /**
+     * {@inheritDoc} Variables may be scoped by way of {@link #getScopedVariableMapper()}.
+     */
     @Override
     public VariableMapper getVariableMapper() {
         return variableMapper;
     }
+
+    /**
+     * Get the {@link VariableMapper} of this context as a {@link ScopedVariableMapper}, such that variables may be
+     * scoped using {@link ScopedVariableMapper#pushFrame()} and {@link ScopedVariableMapper#popFrame()}.
+     * 
+     * @return ScopedVariableMapper
+     */
+    public ScopedVariableMapper getScopedVariableMapper() {
+        return variableMapper;
+    }
 }
@@ -39,4 +39,20 @@ public class SimpleVariableMapper extends VariableMapper {
     public ValueExpression setVariable(String variable, ValueExpression expression) {
         return map.put(variable, expression);
     }
+
+    /**
+     * Remove all variables.
+     */
+    public void clear() {
+        map.clear();
+    }
+
+    /**
+     * Get the live variable map.
+     * 
+     * @return Map
+     */
+    Map<String, ValueExpression> asMap() {
+        return map;
+    }
 }
@@ -0,0 +1,145 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.util.Arrays;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Flat row of values whose names are given by a shared {@link TupleSchema}, resolved by {@link TupleELResolver}: a
+ * compact alternative to a {@link java.util.Map} per row. Not thread-safe.
+ */
+public final class Tuple {
+    private final TupleSchema schema;
+    private final Object[] values;
+
+    /**
+     * Create a new Tuple having all values {@code null}.
+     * 
+     * @param schema
+     */
+    public Tuple(TupleSchema schema) {
+        this.schema = Validate.notNull(schema, "schema");
+        this.values = new Object[schema.size()];
+    }
+
+    /**
+     * Create a new Tuple backed by {@code values}, which is not copied.
+     * 
+     * @param schema
+     * @param values
+     *            in slot order
+     */
+    public Tuple(TupleSchema schema, Object... values) {
+        this.schema = Validate.notNull(schema, "schema");
+        Validate.notNull(values, "values");
+        Validate.isTrue(values.length == schema.size(), "expected %d values; found %d", schema.size(), values.length);
+        this.values = values;
+    }
+
+    /**
+     * Get the schema.
+     * 
+     * @return TupleSchema
+     */
+    public TupleSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Get the value of {@code slot}.
+     * 
+     * @param slot
+     * @return Object
+     */
+    public Object get(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Get the value named {@code name}.
+     * 
+     * @param name
+     * @return Object
+     * @throws IllegalArgumentException
+     *             if there is no such name
+     */
+    public Object get(String name) {
+        return values[slot(name)];
+    }
+
+    /**
+     * Set the value of {@code slot}.
+     * 
+     * @param slot
+     * @param value
+     * @return previous value
+     */
+    public Object set(int slot, Object value) {
+        final Object result = values[slot];
+        values[slot] = value;
+        return result;
+    }
+
+    /**
+     * Set the value named {@code name}.
+     * 
+     * @param name
+     * @param value
+     * @return previous value
+     * @throws IllegalArgumentException
+     *             if there is no such name
+     */
+    public Object set(String name, Object value) {
+        return set(slot(name), value);
+    }
+
+    private int slot(String name) {
+        final int result = schema.slotOf(name);
+        Validate.isTrue(result >= 0, "unknown name %s", name);
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof Tuple)) {
+            return false;
+        }
+        final Tuple other = (Tuple) obj;
+        return other.schema == schema && Arrays.equals(other.values, values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buf = new StringBuilder("{");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                buf.append(", ");
+            }
+            buf.append(schema.getName(i)).append('=').append(values[i]);
+        }
+        return buf.append('}').toString();
+    }
+}
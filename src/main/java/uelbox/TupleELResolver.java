@@ -0,0 +1,114 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.beans.FeatureDescriptor;
+import java.util.Iterator;
+
+import javax.el.ELContext;
+import javax.el.ELException;
+import javax.el.ELResolver;
+import javax.el.PropertyNotFoundException;
+import javax.el.PropertyNotWritableException;
+
+/**
+ * Resolves the named values of {@link Tuple} base objects by way of their {@link TupleSchema}s. An unknown name raises
+ * a {@link PropertyNotFoundException}, as for an unknown bean property.
+ */
+public class TupleELResolver extends ELResolver {
+    private final boolean readOnly;
+
+    /**
+     * Create a new, writable TupleELResolver.
+     */
+    public TupleELResolver() {
+        this(false);
+    }
+
+    /**
+     * Create a new TupleELResolver.
+     * 
+     * @param readOnly
+     */
+    public TupleELResolver(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    @Override
+    public Class<?> getCommonPropertyType(ELContext context, Object base) {
+        return base instanceof Tuple ? String.class : null;
+    }
+
+    @Override
+    public Iterator<FeatureDescriptor> getFeatureDescriptors(ELContext context, Object base) {
+        return null;
+    }
+
+    @Override
+    public Class<?> getType(ELContext context, Object base, Object property) throws NullPointerException,
+        PropertyNotFoundException, ELException {
+        if (base instanceof Tuple) {
+            slot(context, (Tuple) base, property);
+            return Object.class;
+        }
+        return null;
+    }
+
+    @Override
+    public Object getValue(ELContext context, Object base, Object property) throws NullPointerException,
+        PropertyNotFoundException, ELException {
+        if (base instanceof Tuple) {
+            final Tuple tuple = (Tuple) base;
+            return tuple.get(slot(context, tuple, property));
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isReadOnly(ELContext context, Object base, Object property) throws NullPointerException,
+        PropertyNotFoundException, ELException {
+        if (base instanceof Tuple) {
+            slot(context, (Tuple) base, property);
+            return readOnly;
+        }
+        return false;
+    }
+
+    @Override
+    public void setValue(ELContext context, Object base, Object property, Object value) throws NullPointerException,
+        PropertyNotFoundException, PropertyNotWritableException, ELException {
+        if (base instanceof Tuple) {
+            final Tuple tuple = (Tuple) base;
+            final int slot = slot(context, tuple, property);
+            if (readOnly) {
+                throw new PropertyNotWritableException(String.valueOf(property));
+            }
+            tuple.set(slot, value);
+        }
+    }
+
+    /**
+     * Get the slot of {@code property}, marking {@code context} resolved.
+     */
+    private static int slot(ELContext context, Tuple tuple, Object property) {
+        context.setPropertyResolved(true);
+        final int result = tuple.getSchema().slotOf(property);
+        if (result < 0) {
+            throw new PropertyNotFoundException(String.valueOf(property));
+        }
+        return result;
+    }
+}
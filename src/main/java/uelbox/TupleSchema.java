@@ -0,0 +1,139 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Immutable name-to-slot layout shared by any number of {@link Tuple}s. Slots are resolved by name via a hash lookup
+ * whose result is cached in a small direct-mapped table keyed by the identity of the property object, so that repeated
+ * lookups with the same property instance, as an EL implementation passes when evaluating the same parsed
+ * expression, cost an identity hash and an array load.
+ */
+public final class TupleSchema {
+    /**
+     * Immutable entry of the slot cache.
+     */
+    private static class Entry {
+        final Object property;
+        final int slot;
+
+        Entry(Object property, int slot) {
+            this.property = property;
+            this.slot = slot;
+        }
+    }
+
+    private final String[] names;
+    private final Map<String, Integer> slots;
+
+    /**
+     * Direct-mapped slot cache, filled once per index by the first property found there: a colliding property never
+     * displaces it, and so costs the hash lookup alone rather than an allocation and a write to memory shared by every
+     * thread using this schema. Entries being immutable, unsynchronized access is safe.
+     */
+    private final Entry[] cache;
+
+    private TupleSchema(String[] names) {
+        this.names = names;
+        this.slots = new HashMap<String, Integer>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            Validate.isTrue(slots.put(names[i], Integer.valueOf(i)) == null, "duplicate name %s", names[i]);
+        }
+        int size = 8;
+        while (size < names.length * 2) {
+            size *= 2;
+        }
+        this.cache = new Entry[size];
+    }
+
+    /**
+     * Get a TupleSchema having the specified names, in slot order.
+     * 
+     * @param names
+     * @return TupleSchema
+     */
+    public static TupleSchema of(String... names) {
+        Validate.noNullElements(names, "names");
+        return new TupleSchema(names.clone());
+    }
+
+    /**
+     * Get the number of slots.
+     * 
+     * @return int
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Get the names, in slot order.
+     * 
+     * @return unmodifiable List of String
+     */
+    public List<String> getNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    /**
+     * Get the name of {@code slot}.
+     * 
+     * @param slot
+     * @return String
+     */
+    public String getName(int slot) {
+        return names[slot];
+    }
+
+    /**
+     * Get the slot of {@code property}.
+     * 
+     * @param property
+     * @return int, {@code -1} if absent
+     */
+    public int slotOf(Object property) {
+        if (property == null) {
+            return -1;
+        }
+        int h = System.identityHashCode(property);
+        h ^= h >>> 16;
+        final int index = h & (cache.length - 1);
+        final Entry entry = cache[index];
+        if (entry != null && entry.property == property) {
+            return entry.slot;
+        }
+        final Integer slot = slots.get(property.toString());
+        if (slot == null) {
+            return -1;
+        }
+        if (entry == null) {
+            cache[index] = new Entry(property, slot.intValue());
+        }
+        return slot.intValue();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(names);
+    }
+}
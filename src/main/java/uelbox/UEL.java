@@ -17,8 +17,6 @@ package uelbox;
 
 import java.beans.FeatureDescriptor;
 import java.util.Iterator;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import javax.el.ELContext;
 import javax.el.ELException;
@@ -26,6 +24,7 @@ import javax.el.ELResolver;
 import javax.el.ExpressionFactory;
 import javax.el.PropertyNotFoundException;
 import javax.el.PropertyNotWritableException;
+import javax.el.ValueExpression;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
@@ -41,7 +40,8 @@ public class UEL {
 
     private static final char DOT = '.';
     private static final char LBRACK = '[';
-    private static final Pattern DELIMITED_EXPR = Pattern.compile("^.\\{\\s*(.*?)\\s*\\}$");
+    private static final char LBRACE = '{';
+    private static final char RBRACE = '}';
 
     private static final ELResolver NOP_EL_RESOLVER = new ELResolver() {
 
@@ -82,7 +82,8 @@ public class UEL {
 
     /**
      * Get an ExpressionFactory instance for the specified context, using {@link ELContext#getContext(Class)}, and
-     * setting such a context value, if not found, to {@link javax.el.ExpressionFactory#newInstance()}.
+     * setting such a context value, if not found, to the shared instance obtained from
+     * {@link ExpressionFactoryRegistry#getExpressionFactory()}.
      * 
      * @param context
      * @return ExpressionFactory
@@ -90,12 +91,29 @@ public class UEL {
     public static ExpressionFactory getExpressionFactory(ELContext context) {
         ExpressionFactory result = getContext(context, ExpressionFactory.class);
         if (result == null) {
-            result = ExpressionFactory.newInstance();
+            result = ExpressionFactoryRegistry.getExpressionFactory();
             context.putContext(ExpressionFactory.class, result);
         }
         return result;
     }
 
+    /**
+     * Create a {@link ValueExpression} using the {@link ExpressionCache} context object of the specified context, if
+     * any, else {@link #getExpressionFactory(ELContext)} directly.
+     * 
+     * @param context
+     * @param expression
+     * @param expectedType
+     * @return ValueExpression
+     */
+    public static ValueExpression createValueExpression(ELContext context, String expression, Class<?> expectedType) {
+        final ExpressionCache expressionCache = getContext(context, ExpressionCache.class);
+        if (expressionCache == null) {
+            return getExpressionFactory(context).createValueExpression(context, expression, expectedType);
+        }
+        return expressionCache.getValueExpression(context, expression, expectedType);
+    }
+
     /**
      * Casts context objects per documented convention.
      * 
@@ -133,6 +151,16 @@ public class UEL {
         return embed(expression, DEFAULT_TRIGGER);
     }
 
+    /**
+     * Embed the specified expression, if necessary, using {@link #DEFAULT_TRIGGER} as the triggering character.
+     * 
+     * @param expression
+     * @return String
+     */
+    public static String embed(CharSequence expression) {
+        return embed(expression, DEFAULT_TRIGGER);
+    }
+
     /**
      * Embed the specified expression, if necessary, using the specified triggering character.
      * 
@@ -141,7 +169,22 @@ public class UEL {
      * @return String
      */
     public static String embed(final String expression, final char trigger) {
-        return new StringBuilder().append(trigger).append('{').append(strip(expression)).append('}').toString();
+        return embed((CharSequence) expression, trigger);
+    }
+
+    /**
+     * Embed the specified expression, if necessary, using the specified triggering character.
+     * 
+     * @param expression
+     * @param trigger
+     * @return String
+     */
+    public static String embed(final CharSequence expression, final char trigger) {
+        final CharSequence expr = expression == null ? StringUtils.EMPTY : expression;
+        final int start = strippedStart(expr);
+        final int end = strippedEnd(expr, start);
+        return new StringBuilder(end - start + 3).append(trigger).append(LBRACE).append(expr, start, end)
+            .append(RBRACE).toString();
     }
 
     /**
@@ -151,7 +194,21 @@ public class UEL {
      * @return boolean
      */
     public static boolean isDelimited(final String expression) {
-        return DELIMITED_EXPR.matcher(StringUtils.trimToEmpty(expression)).matches();
+        return isDelimited((CharSequence) expression);
+    }
+
+    /**
+     * Learn whether the specified expression is delimited.
+     * 
+     * @param expression
+     * @return boolean
+     */
+    public static boolean isDelimited(final CharSequence expression) {
+        if (expression == null) {
+            return false;
+        }
+        final int start = trimStart(expression);
+        return isDelimited(expression, start, trimEnd(expression, start));
     }
 
     /**
@@ -162,9 +219,19 @@ public class UEL {
      * @throws IllegalArgumentException if argument expression is not delimited
      */
     public static char getTrigger(final String delimitedExpression) {
-        final String expr = StringUtils.trimToEmpty(delimitedExpression);
-        Validate.isTrue(isDelimited(expr));
-        return expr.charAt(0);
+        return getTrigger((CharSequence) delimitedExpression);
+    }
+
+    /**
+     * Get the trigger character for the specified delimited expression.
+     * 
+     * @param delimitedExpression
+     * @return first non-whitespace character of {@code delimitedExpression}
+     * @throws IllegalArgumentException if argument expression is not delimited
+     */
+    public static char getTrigger(final CharSequence delimitedExpression) {
+        Validate.isTrue(isDelimited(delimitedExpression));
+        return delimitedExpression.charAt(trimStart(delimitedExpression));
     }
 
     /**
@@ -174,9 +241,21 @@ public class UEL {
      * @return String
      */
     public static String strip(final String expression) {
-        final String expr = StringUtils.trimToEmpty(expression);
-        final Matcher matcher = DELIMITED_EXPR.matcher(expr);
-        return matcher.matches() ? matcher.group(1) : expr;
+        return strip((CharSequence) expression);
+    }
+
+    /**
+     * Strip any delimiter from the specified expression.
+     * 
+     * @param expression
+     * @return String
+     */
+    public static String strip(final CharSequence expression) {
+        if (expression == null) {
+            return StringUtils.EMPTY;
+        }
+        final int start = strippedStart(expression);
+        return expression.subSequence(start, strippedEnd(expression, start)).toString();
     }
 
     /**
@@ -186,6 +265,16 @@ public class UEL {
      * @return String
      */
     public static String join(final String... expressions) {
+        return join((CharSequence[]) expressions);
+    }
+
+    /**
+     * Join expressions using the trigger character, if any ({@link #DEFAULT_TRIGGER} if absent), of the first.
+     * 
+     * @param expressions
+     * @return String
+     */
+    public static String join(final CharSequence... expressions) {
         Validate.notEmpty(expressions);
         final char trigger = isDelimited(expressions[0]) ? getTrigger(expressions[0]) : DEFAULT_TRIGGER;
         return join(trigger, expressions);
@@ -200,44 +289,184 @@ public class UEL {
      * @return String
      */
     public static String join(final char trigger, final String... expressions) {
+        return join(trigger, (CharSequence[]) expressions);
+    }
+
+    /**
+     * Join expressions using the specified trigger character.
+     * 
+     * @param trigger
+     * @param expressions
+     * 
+     * @return String
+     */
+    public static String join(final char trigger, final CharSequence... expressions) {
         Validate.notEmpty(expressions);
 
-        final StringBuilder buf = new StringBuilder();
+        final StringBuilder buf = new StringBuilder().append(trigger).append(LBRACE);
+        final int contentStart = buf.length();
 
-        for (String expression : expressions) {
-            final String stripped = strip(expression);
-            if (expression.isEmpty()) {
+        for (CharSequence expression : expressions) {
+            if (expression == null) {
+                continue;
+            }
+            final int start = strippedStart(expression);
+            final int end = strippedEnd(expression, start);
+            if (start == end) {
                 continue;
             }
 
             final int len = buf.length();
-            if (len > 0) {
-                final int end = len - 1;
+            if (len > contentStart) {
+                final int last = len - 1;
 
-                final char last = buf.charAt(end);
-                final char first = stripped.charAt(0);
-                
-                switch (first) {
+                switch (expression.charAt(start)) {
                 case DOT:
                 case LBRACK:
-                    if (last == DOT) {
-                        buf.deleteCharAt(end);
+                    if (buf.charAt(last) == DOT) {
+                        buf.deleteCharAt(last);
                     }
                     break;
                 default:
-                    if (last != DOT) {
+                    if (buf.charAt(last) != DOT) {
                         buf.append(DOT);
                     }
                     break;
                 }
             }
-            buf.append(stripped);
+            buf.append(expression, start, end);
         }
-        return embed(buf.toString(), trigger);
+        return buf.append(RBRACE).toString();
     }
 
     /**
-     * Use EL specification coercion facilities to coerce an object to the specified type.
+     * Get the index at which the content of the specified expression begins, once surrounding whitespace and any
+     * delimiter are disregarded.
+     * 
+     * @param expression
+     * @return int
+     */
+    static int strippedStart(CharSequence expression) {
+        final int start = trimStart(expression);
+        final int end = trimEnd(expression, start);
+        if (!isDelimited(expression, start, end)) {
+            return start;
+        }
+        int result = start + 2;
+        while (result < end - 1 && isSpace(expression.charAt(result))) {
+            result++;
+        }
+        return result;
+    }
+
+    /**
+     * Get the index at which the content of the specified expression ends, once surrounding whitespace and any
+     * delimiter are disregarded.
+     * 
+     * @param expression
+     * @param strippedStart
+     *            as calculated by {@link #strippedStart(CharSequence)}
+     * @return int
+     */
+    static int strippedEnd(CharSequence expression, int strippedStart) {
+        final int start = trimStart(expression);
+        final int end = trimEnd(expression, start);
+        if (!isDelimited(expression, start, end)) {
+            return end;
+        }
+        int result = end - 1;
+        while (result > strippedStart && isSpace(expression.charAt(result - 1))) {
+            result--;
+        }
+        return result;
+    }
+
+    /**
+     * Scans the trimmed range of a {@link CharSequence} in the manner of the regular expression
+     * {@code ^.\{\s*(.*?)\s*\}$}.
+     */
+    private static boolean isDelimited(CharSequence expression, int start, int end) {
+        if (end - start < 3 || expression.charAt(start + 1) != LBRACE || expression.charAt(end - 1) != RBRACE
+            || isLineTerminator(expression.charAt(start))) {
+            return false;
+        }
+        int i = start + 2;
+        int j = end - 1;
+        while (i < j && isSpace(expression.charAt(i))) {
+            i++;
+        }
+        while (j > i && isSpace(expression.charAt(j - 1))) {
+            j--;
+        }
+        for (; i < j; i++) {
+            if (isLineTerminator(expression.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same criterion as {@link String#trim()}.
+     */
+    private static int trimStart(CharSequence s) {
+        final int len = s.length();
+        int result = 0;
+        while (result < len && s.charAt(result) <= ' ') {
+            result++;
+        }
+        return result;
+    }
+
+    /**
+     * Same criterion as {@link String#trim()}.
+     */
+    private static int trimEnd(CharSequence s, int start) {
+        int result = s.length();
+        while (result > start && s.charAt(result - 1) <= ' ') {
+            result--;
+        }
+        return result;
+    }
+
+    /**
+     * Regular expression {@code \s}.
+     */
+    private static boolean isSpace(char c) {
+        switch (c) {
+        case ' ':
+        case '\t':
+        case '\n':
+        case '\u000B':
+        case '\f':
+        case '\r':
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Characters not matched by regular expression {@code .}.
+     */
+    private static boolean isLineTerminator(char c) {
+        switch (c) {
+        case '\n':
+        case '\r':
+        case '\u0085':
+        case '\u2028':
+        case '\u2029':
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Use EL specification coercion facilities to coerce an object to the specified type. Coercions among
+     * {@link String}, {@link Character}, {@link Boolean}, primitive/boxed numeric and enum types, and of values already
+     * assignable to {@code toType}, are performed directly; others are delegated to the {@link ExpressionFactory} of
+     * {@code context}.
      * 
      * @param context
      * @param toType
@@ -247,7 +476,7 @@ public class UEL {
      */
     public static <T> T coerceToType(ELContext context, Class<T> toType, Object object) {
         @SuppressWarnings("unchecked")
-        T result = (T) getExpressionFactory(context).coerceToType(object, toType);
+        T result = (T) Coercions.coerceToType(context, toType, object);
         return result;
     }
 
@@ -259,4 +488,24 @@ public class UEL {
     public static ELResolver nopELResolver() {
         return NOP_EL_RESOLVER;
     }
+
+    /**
+     * Learn whether {@code type} is loaded by the {@link ClassLoader} of uelbox or one of its ancestors, in which case
+     * it cannot be discarded before uelbox itself and may safely be referenced strongly from static caches.
+     * 
+     * @param type
+     * @return boolean
+     */
+    static boolean isCacheSafe(Class<?> type) {
+        final ClassLoader target = type.getClassLoader();
+        if (target == null) {
+            return true;
+        }
+        for (ClassLoader cl = UEL.class.getClassLoader(); cl != null; cl = cl.getParent()) {
+            if (cl == target) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
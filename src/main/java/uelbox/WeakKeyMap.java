@@ -0,0 +1,180 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Concurrent map whose keys are held weakly and compared by identity, such that a mapping disappears once its key has
+ * been collected. Neither reads nor writes take a lock. Values must not strongly reference their keys.
+ *
+ * @param <K>
+ * @param <V>
+ */
+class WeakKeyMap<K, V> {
+    /**
+     * Weak key that remembers the identity hash of its referent, so that it can be removed once cleared.
+     */
+    private static class WeakKey<K> extends WeakReference<K> {
+        final int hash;
+
+        WeakKey(K key, ReferenceQueue<K> queue) {
+            super(key, queue);
+            hash = System.identityHashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof WeakKey<?>)) {
+                return false;
+            }
+            final Object key = get();
+            return key != null && key == ((WeakKey<?>) obj).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Key used to look up a {@link WeakKey} without creating a reference.
+     */
+    private static class LookupKey {
+        final Object key;
+
+        LookupKey(Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof WeakKey<?> && ((WeakKey<?>) obj).get() == key;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(key);
+        }
+    }
+
+    private final ConcurrentMap<Object, V> map = new ConcurrentHashMap<Object, V>();
+    private final ReferenceQueue<K> queue = new ReferenceQueue<K>();
+
+    /**
+     * Get the value mapped to {@code key}.
+     *
+     * @param key
+     * @return V or {@code null}
+     */
+    V get(K key) {
+        return map.isEmpty() ? null : map.get(new LookupKey(key));
+    }
+
+    /**
+     * Map {@code key} to {@code value}.
+     *
+     * @param key
+     * @param value
+     * @return previous value or {@code null}
+     */
+    V put(K key, V value) {
+        expunge();
+        return map.put(new WeakKey<K>(key, queue), value);
+    }
+
+    /**
+     * Map {@code key} to {@code value} unless already mapped.
+     *
+     * @param key
+     * @param value
+     * @return existing value or {@code null}
+     */
+    V putIfAbsent(K key, V value) {
+        expunge();
+        return map.putIfAbsent(new WeakKey<K>(key, queue), value);
+    }
+
+    /**
+     * Map {@code key} to {@code newValue} only if currently mapped to {@code oldValue}.
+     *
+     * @param key
+     * @param oldValue
+     * @param newValue
+     * @return whether replaced
+     */
+    boolean replace(K key, V oldValue, V newValue) {
+        return map.replace(new LookupKey(key), oldValue, newValue);
+    }
+
+    /**
+     * Remove any mapping of {@code key}.
+     *
+     * @param key
+     * @return previous value or {@code null}
+     */
+    V remove(K key) {
+        expunge();
+        return map.remove(new LookupKey(key));
+    }
+
+    /**
+     * Remove all mappings.
+     */
+    void clear() {
+        map.clear();
+        expunge();
+    }
+
+    /**
+     * Get the number of mappings, possibly including some whose key has been collected.
+     *
+     * @return int
+     */
+    int size() {
+        return map.size();
+    }
+
+    /**
+     * Copy the live mappings into {@code target}.
+     *
+     * @param target
+     */
+    @SuppressWarnings("unchecked")
+    void copyTo(Map<? super K, ? super V> target) {
+        for (Map.Entry<Object, V> e : map.entrySet()) {
+            final K key = ((WeakKey<K>) e.getKey()).get();
+            if (key != null) {
+                target.put(key, e.getValue());
+            }
+        }
+    }
+
+    private void expunge() {
+        for (Reference<? extends K> ref = queue.poll(); ref != null; ref = queue.poll()) {
+            map.remove(ref);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.el.ELContext;
+import javax.el.ValueExpression;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link BatchEvaluator}.
+ */
+public class BatchEvaluatorTest {
+    private ELContext context;
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        context = new SimpleELContext();
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdownNow();
+    }
+
+    private BatchEvaluator evaluator(String expression, Class<?> expectedType) {
+        final ValueExpression valueExpression =
+            UEL.getExpressionFactory(context).createValueExpression(context, expression, expectedType);
+        return new BatchEvaluator(context, "row", valueExpression);
+    }
+
+    private static Map<String, Object> row(Object region) {
+        final Map<String, Object> customer = new HashMap<String, Object>();
+        customer.put("region", region);
+        return Collections.<String, Object> singletonMap("customer", customer);
+    }
+
+    @Test
+    public void testArray() {
+        assertArrayEquals(new Object[] { "north", "south", "" },
+            evaluator("#{row.customer.region}", String.class).evaluateAll(new Object[] { row("north"), row("south"),
+                row(null) }));
+    }
+
+    @Test
+    public void testIterable() {
+        assertEquals(Arrays.<Object> asList(Integer.valueOf(1), Integer.valueOf(2), Integer.valueOf(0)),
+            evaluator("#{row.customer.region}", Integer.class).evaluateAll(
+                Arrays.asList(row(1L), row("2"), Collections.emptyMap())));
+    }
+
+    @Test
+    public void testNullRoot() {
+        assertArrayEquals(new Object[] { null, "x" },
+            evaluator("#{row.customer.region}", Object.class).evaluateAll(new Object[] { null, row("x") }));
+    }
+
+    @Test
+    public void testCompositeExpression() {
+        assertEquals(Arrays.<Object> asList("a-north", "a-south"),
+            evaluator("a-#{row.customer.region}", String.class).evaluateAll(Arrays.asList(row("north"),
+                row("south"))));
+    }
+
+    @Test
+    public void testParallel() {
+        final List<Object> rows = new ArrayList<Object>();
+        final List<Object> expected = new ArrayList<Object>();
+        for (int i = 0; i < 1000; i++) {
+            rows.add(row(i));
+            expected.add(Integer.valueOf(i + 1));
+        }
+        assertEquals(expected, evaluator("#{row.customer.region + 1}", Integer.class).evaluateAll(rows, executor, 4));
+        assertEquals(expected.subList(0, 3),
+            evaluator("#{row.customer.region + 1}", Integer.class).evaluateAll(rows.subList(0, 3), executor, 8));
+    }
+
+    @Test
+    public void testFirstRowTraversedOnce() {
+        final int[] gets = new int[1];
+        final Map<String, Object> first = new HashMap<String, Object>(row("north")) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Object get(Object key) {
+                gets[0]++;
+                return super.get(key);
+            }
+        };
+        assertArrayEquals(new Object[] { "north", "south" },
+            evaluator("#{row.customer.region}", String.class).evaluateAll(new Object[] { first, row("south") }));
+        assertEquals(1, gets[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShadowedByVariable() {
+        context.getVariableMapper().setVariable("row",
+            UEL.getExpressionFactory(context).createValueExpression(row("x"), Object.class));
+        evaluator("#{row.customer.region}", Object.class);
+    }
+}
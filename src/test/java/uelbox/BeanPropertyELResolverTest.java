@@ -0,0 +1,230 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.beans.FeatureDescriptor;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import javax.el.ELContext;
+import javax.el.ELException;
+import javax.el.ELResolver;
+import javax.el.MethodNotFoundException;
+import javax.el.PropertyNotFoundException;
+import javax.el.PropertyNotWritableException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link BeanPropertyELResolver}.
+ */
+public class BeanPropertyELResolverTest {
+    public static class Bean {
+        private String name = "foo";
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getLength() {
+            return name.length();
+        }
+
+        public String getBroken() {
+            throw new IllegalStateException("broken");
+        }
+
+        public String hello(String who) {
+            return "hi " + who;
+        }
+
+        public int sum(int first, int... rest) {
+            int result = first;
+            for (int i : rest) {
+                result += i;
+            }
+            return result;
+        }
+    }
+
+    public interface Named {
+        String getName();
+    }
+
+    private static class Hidden implements Named {
+
+        @Override
+        public String getName() {
+            return "hidden";
+        }
+
+        public String getSecret() {
+            return "secret";
+        }
+    }
+
+    private ELContext context;
+    private ELResolver resolver;
+
+    @Before
+    public void setup() {
+        context = new SimpleELContext();
+        resolver = new BeanPropertyELResolver();
+    }
+
+    @Test
+    public void testGetValue() {
+        assertEquals("foo", resolver.getValue(context, new Bean(), "name"));
+        assertTrue(context.isPropertyResolved());
+        assertEquals(Integer.valueOf(3), resolver.getValue(context, new Bean(), "length"));
+    }
+
+    @Test
+    public void testNullBase() {
+        assertNull(resolver.getValue(context, null, "name"));
+        assertFalse(context.isPropertyResolved());
+    }
+
+    @Test
+    public void testSetValue() {
+        final Bean bean = new Bean();
+        assertFalse(resolver.isReadOnly(context, bean, "name"));
+        resolver.setValue(context, bean, "name", "bar");
+        assertEquals("bar", bean.getName());
+        assertEquals(String.class, resolver.getType(context, bean, "name"));
+        assertEquals(int.class, resolver.getType(context, bean, "length"));
+    }
+
+    @Test(expected = PropertyNotWritableException.class)
+    public void testSetReadOnlyProperty() {
+        final Bean bean = new Bean();
+        assertTrue(resolver.isReadOnly(context, bean, "length"));
+        resolver.setValue(context, bean, "length", 1);
+    }
+
+    @Test(expected = PropertyNotWritableException.class)
+    public void testReadOnlyResolver() {
+        final Bean bean = new Bean();
+        final ELResolver readOnly = new BeanPropertyELResolver(true);
+        assertTrue(readOnly.isReadOnly(context, bean, "name"));
+        readOnly.setValue(context, bean, "name", "bar");
+    }
+
+    @Test(expected = PropertyNotFoundException.class)
+    public void testPropertyNotFound() {
+        resolver.getValue(context, new Bean(), "missing");
+    }
+
+    @Test(expected = ELException.class)
+    public void testAccessorException() {
+        resolver.getValue(context, new Bean(), "broken");
+    }
+
+    @Test
+    public void testInvoke() {
+        assertEquals("hi x", resolver.invoke(context, new Bean(), "hello", null, new Object[] { "x" }));
+        assertTrue(context.isPropertyResolved());
+        assertEquals("hi 1", resolver.invoke(context, new Bean(), "hello", new Class<?>[] { String.class },
+            new Object[] { Long.valueOf(1) }));
+        assertEquals(Integer.valueOf(1),
+            resolver.invoke(context, Collections.singletonList("a"), "size", null, null));
+    }
+
+    @Test
+    public void testInvokeVarArgs() {
+        assertEquals(Integer.valueOf(1), resolver.invoke(context, new Bean(), "sum", null, new Object[] { "1" }));
+        assertEquals(Integer.valueOf(6),
+            resolver.invoke(context, new Bean(), "sum", null, new Object[] { 1, 2L, "3" }));
+    }
+
+    @Test(expected = MethodNotFoundException.class)
+    public void testInvokeMethodNotFound() {
+        resolver.invoke(context, new Bean(), "hello", null, new Object[] { "x", "y" });
+    }
+
+    @Test
+    public void testInvokeException() {
+        try {
+            resolver.invoke(context, new Bean(), "getBroken", null, null);
+            fail();
+        } catch (ELException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testNonPublicClass() {
+        assertEquals("hidden", resolver.getValue(context, new Hidden(), "name"));
+    }
+
+    @Test(expected = PropertyNotFoundException.class)
+    public void testNonPublicAccessor() {
+        resolver.getValue(context, new Hidden(), "secret");
+    }
+
+    @Test(expected = MethodNotFoundException.class)
+    public void testInvokeNonPublicMethod() {
+        resolver.invoke(context, new Hidden(), "getSecret", null, new Object[0]);
+    }
+
+    @Test
+    public void testFeatureDescriptors() {
+        final Set<String> names = new HashSet<String>();
+        for (Iterator<FeatureDescriptor> iter = resolver.getFeatureDescriptors(context, new Bean()); iter.hasNext();) {
+            final FeatureDescriptor descriptor = iter.next();
+            names.add(descriptor.getName());
+            assertEquals(Boolean.TRUE, descriptor.getValue(ELResolver.RESOLVABLE_AT_DESIGN_TIME));
+        }
+        assertTrue(names.contains("name"));
+        assertTrue(names.contains("length"));
+    }
+
+    @Test
+    public void testExpression() {
+        context.getVariableMapper().setVariable("bean",
+            UEL.getExpressionFactory(context).createValueExpression(new Bean(), Bean.class));
+        assertEquals(Integer.valueOf(3), UEL.getExpressionFactory(context)
+            .createValueExpression(context, "#{bean.length}", Integer.class).getValue(context));
+    }
+
+    @Test
+    public void testMethodExpression() {
+        final ELContext wrapper = new ELContextWrapper(context) {
+
+            @Override
+            protected ELResolver wrap(ELResolver elResolver) {
+                return resolver;
+            }
+        };
+        wrapper.getVariableMapper().setVariable("bean",
+            UEL.getExpressionFactory(context).createValueExpression(new Bean(), Bean.class));
+        assertEquals("hi x", UEL.getExpressionFactory(context)
+            .createValueExpression(wrapper, "#{bean.hello('x')}", String.class).getValue(wrapper));
+    }
+}
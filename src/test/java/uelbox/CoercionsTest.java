@@ -0,0 +1,99 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import javax.el.ELContext;
+import javax.el.ELException;
+import javax.el.ExpressionFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link Coercions} by way of {@link UEL#coerceToType(ELContext, Class, Object)}.
+ */
+public class CoercionsTest {
+    public enum Color {
+        RED, GREEN {
+            @Override
+            public String toString() {
+                return "green";
+            }
+        };
+    }
+
+    private static final Object[] VALUES = { null, "", "12", "-3.5", "abc", "true", "RED", "x", Character.valueOf('c'),
+        Integer.valueOf(65), Long.valueOf(3L), Double.valueOf(2.5), Float.valueOf(1.5f), Short.valueOf((short) 7),
+        Byte.valueOf((byte) 1), new BigDecimal("2.5"), BigInteger.TEN, Boolean.TRUE, Color.RED, Color.GREEN,
+        new Object() };
+
+    private static final Class<?>[] TYPES = { String.class, Character.class, char.class, Boolean.class, boolean.class,
+        Integer.class, int.class, Long.class, long.class, Double.class, double.class, Float.class, float.class,
+        Short.class, short.class, Byte.class, byte.class, BigDecimal.class, BigInteger.class, Color.class,
+        Object.class, Number.class };
+
+    private ELContext context;
+    private ExpressionFactory expressionFactory;
+
+    @Before
+    public void setup() {
+        context = new SimpleELContext();
+        expressionFactory = UEL.getExpressionFactory(context);
+    }
+
+    @Test
+    public void testAgreesWithExpressionFactory() {
+        // twice, to exercise cached coercers:
+        for (int pass = 0; pass < 2; pass++) {
+            for (Class<?> type : TYPES) {
+                for (Object value : VALUES) {
+                    Object expected;
+                    try {
+                        expected = expressionFactory.coerceToType(value, type);
+                    } catch (ELException e) {
+                        expected = ELException.class;
+                    }
+                    Object actual;
+                    try {
+                        actual = UEL.coerceToType(context, type, value);
+                    } catch (ELException e) {
+                        actual = ELException.class;
+                    }
+                    assertEquals(String.format("%s to %s", value, type), expected, actual);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIdentity() {
+        final Integer i = Integer.valueOf(1000);
+        assertSame(i, UEL.coerceToType(context, Integer.class, i));
+        assertSame(i, UEL.coerceToType(context, int.class, i));
+        assertSame(Color.GREEN, UEL.coerceToType(context, Color.class, Color.GREEN));
+    }
+
+    @Test(expected = ELException.class)
+    public void testFailure() {
+        UEL.coerceToType(context, Integer.class, "abc");
+    }
+}
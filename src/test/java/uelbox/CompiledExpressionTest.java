@@ -0,0 +1,207 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.MapELResolver;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link CompiledExpression}.
+ */
+public class CompiledExpressionTest {
+    public static class Holder {
+        private Object row;
+
+        public Object getRow() {
+            return row;
+        }
+
+        public void setRow(Object row) {
+            this.row = row;
+        }
+    }
+
+    public static class Customer {
+        private final String name;
+
+        public Customer(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public static class OtherCustomer extends Customer {
+
+        public OtherCustomer(String name) {
+            super(name);
+        }
+
+        @Override
+        public String getName() {
+            return "other " + super.getName();
+        }
+    }
+
+    private ELContext context;
+    private Holder holder;
+
+    @Before
+    public void setup() {
+        context = new SimpleELContext();
+        holder = new Holder();
+        context.getVariableMapper().setVariable("holder",
+            UEL.getExpressionFactory(context).createValueExpression(holder, Holder.class));
+    }
+
+    private CompiledExpression compile(String expression, Class<?> expectedType) {
+        return CompiledExpression.compile(context, UEL.getExpressionFactory(context).createValueExpression(context,
+            expression, expectedType));
+    }
+
+    @Test
+    public void testBeanPath() {
+        holder.setRow(new Customer("foo"));
+        final CompiledExpression compiled = compile("#{holder.row.name}", String.class);
+        assertTrue(compiled.isCompiled());
+        assertEquals("foo", compiled.getValue(context));
+        holder.setRow(new Customer("bar"));
+        assertEquals("bar", compiled.getValue(context));
+    }
+
+    @Test
+    public void testCollections() {
+        final Map<String, Object> row = new HashMap<String, Object>();
+        row.put("items", Arrays.asList("a", "b"));
+        row.put("array", new int[] { 1, 2 });
+        holder.setRow(row);
+
+        final CompiledExpression list = compile("#{holder.row['items'][1]}", String.class);
+        assertTrue(list.isCompiled());
+        assertEquals("b", list.getValue(context));
+        row.put("items", Arrays.asList("c", "d"));
+        assertEquals("d", list.getValue(context));
+        row.put("items", Arrays.asList("e"));
+        // null coerced to the expected type:
+        assertEquals("", list.getValue(context));
+
+        final CompiledExpression array = compile("#{holder.row.array[0]}", Integer.class);
+        assertTrue(array.isCompiled());
+        assertEquals(Integer.valueOf(1), array.getValue(context));
+    }
+
+    @Test
+    public void testNullIntermediate() {
+        holder.setRow(new Customer("foo"));
+        final CompiledExpression compiled = compile("#{holder.row.name}", String.class);
+        holder.setRow(null);
+        assertEquals(compiled.getExpression().getValue(context), compiled.getValue(context));
+    }
+
+    @Test
+    public void testCoercion() {
+        holder.setRow(new Customer("12"));
+        final CompiledExpression compiled = compile("#{holder.row.name}", Integer.class);
+        assertTrue(compiled.isCompiled());
+        assertEquals(Integer.valueOf(12), compiled.getValue(context));
+    }
+
+    @Test
+    public void testGuardFailureFallsBack() {
+        holder.setRow(new Customer("foo"));
+        final CompiledExpression compiled = compile("#{holder.row.name}", String.class);
+        holder.setRow(new OtherCustomer("foo"));
+        assertEquals("other foo", compiled.getValue(context));
+        holder.setRow(new HashMap<String, String>());
+        assertEquals("", compiled.getValue(context));
+    }
+
+    @Test
+    public void testOtherResolverFallsBack() {
+        holder.setRow(new Customer("foo"));
+        final CompiledExpression compiled = compile("#{holder.row.name}", String.class);
+        final ELContext other = new ELContextWrapper(context) {
+
+            @Override
+            protected ELResolver wrap(ELResolver elResolver) {
+                return new ELResolverWrapper(elResolver);
+            }
+        };
+        assertEquals("foo", compiled.getValue(other));
+    }
+
+    @Test
+    public void testCustomResolverNotCompiled() {
+        final Map<String, String> row = new HashMap<String, String>();
+        row.put("name", "foo");
+        holder.setRow(row);
+        final ELContext custom = new ELContextWrapper(context) {
+
+            @Override
+            protected ELResolver wrap(ELResolver elResolver) {
+                return new DispatchingELResolver(new MapELResolver() {
+
+                    @Override
+                    public Object getValue(ELContext context, Object base, Object property) {
+                        final Object result = super.getValue(context, base, property);
+                        return result instanceof String ? ((String) result).toUpperCase() : result;
+                    }
+                }, elResolver);
+            }
+        };
+        final CompiledExpression compiled = CompiledExpression.compile(custom, UEL.getExpressionFactory(context)
+            .createValueExpression(custom, "#{holder.row.name}", String.class));
+        assertFalse(compiled.isCompiled());
+        assertEquals("FOO", compiled.getValue(custom));
+    }
+
+    @Test
+    public void testOtherSimpleELContext() {
+        holder.setRow(new Customer("foo"));
+        final CompiledExpression compiled = compile("#{holder.row.name}", String.class);
+        assertTrue(compiled.isCompiled());
+        final ELContext other = new SimpleELContext();
+        assertEquals("foo", compiled.getValue(other));
+        holder.setRow(new Customer("bar"));
+        assertEquals("bar", compiled.getValue(other));
+    }
+
+    @Test
+    public void testNotCompiled() {
+        holder.setRow(new Customer("foo"));
+        for (String expression : Arrays.asList("#{holder}", "#{holder.row.name + 1}",
+            "#{holder.row[holder.row.name]}", "#{holder.row.nonexistent}")) {
+            assertFalse(expression, compile(expression, Object.class).isCompiled());
+        }
+        final CompiledExpression concatenated = compile("x#{holder.row.name}", String.class);
+        assertFalse(concatenated.isCompiled());
+        assertEquals("xfoo", concatenated.getValue(context));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.el.ELContext;
+import javax.el.ExpressionFactory;
+import javax.el.ValueExpression;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link DependencyTrackingELResolver} and {@link DependencyIndex}.
+ */
+public class DependencyTrackingELResolverTest {
+    private ELContext context;
+    private ExpressionFactory expressionFactory;
+    private DependencyTrackingELResolver resolver;
+    private Map<String, Object> model;
+    private Map<String, Object> customer;
+    private List<String> tags;
+
+    @Before
+    public void setup() {
+        context = new SimpleELContext();
+        expressionFactory = UEL.getExpressionFactory(context);
+        resolver = new DependencyTrackingELResolver(context.getELResolver());
+        customer = new HashMap<String, Object>();
+        customer.put("name", "foo");
+        tags = Arrays.asList("a", "b");
+        model = new HashMap<String, Object>();
+        model.put("customer", customer);
+        model.put("tags", tags);
+        model.put("count", 2);
+        context.getVariableMapper().setVariable("model", expressionFactory.createValueExpression(model, Map.class));
+    }
+
+    private ValueExpression expression(String expression) {
+        return expressionFactory.createValueExpression(context, expression, Object.class);
+    }
+
+    @Test
+    public void testRecordsReads() {
+        final DependencyTrackingELResolver.Result result =
+            resolver.evaluate(context, expression("#{model.customer.name}#{model.tags[1]}"));
+        assertEquals("foob", result.getValue());
+        final DependencySet dependencies = result.getDependencies();
+        assertEquals(4, dependencies.size());
+        assertTrue(dependencies.contains(model, "customer"));
+        assertTrue(dependencies.contains(customer, "name"));
+        assertTrue(dependencies.contains(model, "tags"));
+        assertTrue(dependencies.contains(tags, 1));
+        assertFalse(dependencies.contains(model, "count"));
+        assertTrue(dependencies.dependsOn(customer));
+    }
+
+    @Test
+    public void testRecordsMethodCalls() {
+        final DependencyTrackingELResolver.Result result =
+            resolver.evaluate(context, expression("#{model.tags.size()}"));
+        assertEquals(Integer.valueOf(2), result.getValue());
+        final DependencySet dependencies = result.getDependencies();
+        assertEquals(2, dependencies.size());
+        assertTrue(dependencies.contains(model, "tags"));
+        assertTrue(dependencies.contains(tags, "size"));
+    }
+
+    @Test
+    public void testDistinctReads() {
+        assertEquals(1, resolver.evaluate(context, expression("#{model.count + model.count}")).getDependencies()
+            .size());
+    }
+
+    @Test
+    public void testUntrackedOutsideEvaluation() {
+        resolver.getValue(context, model, "count");
+        assertTrue(context.isPropertyResolved());
+    }
+
+    @Test
+    public void testIndex() {
+        final DependencyIndex<String> index = new DependencyIndex<String>();
+        index.put("name", resolver.evaluate(context, expression("#{model.customer.name}")).getDependencies());
+        index.put("count", resolver.evaluate(context, expression("#{model.count}")).getDependencies());
+        index.put("tag", resolver.evaluate(context, expression("#{model.tags[0]}")).getDependencies());
+
+        assertEquals(Collections.singleton("name"), index.getDependents(customer, "name"));
+        assertEquals(Collections.singleton("tag"), index.getDependents(tags, Integer.valueOf(0)));
+        assertEquals(3, index.getDependents(model).size());
+        assertTrue(index.getDependents(customer, "address").isEmpty());
+
+        index.put("name", resolver.evaluate(context, expression("#{model.count}")).getDependencies());
+        assertTrue(index.getDependents(customer).isEmpty());
+        assertEquals(2, index.getDependents(model, "count").size());
+
+        index.remove("count");
+        index.remove("name");
+        assertEquals(1, index.size());
+        assertEquals(Collections.singleton("tag"), index.getDependents(model));
+    }
+}
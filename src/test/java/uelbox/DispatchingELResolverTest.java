@@ -0,0 +1,217 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Array;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.el.ArrayELResolver;
+import javax.el.BeanELResolver;
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.MapELResolver;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link DispatchingELResolver}.
+ */
+public class DispatchingELResolverTest {
+    /**
+     * Counts {@link #getValue(ELContext, Object, Object)} calls.
+     */
+    static class CountingELResolver extends ELResolverWrapper {
+        int calls;
+
+        CountingELResolver(ELResolver wrapped) {
+            super(wrapped);
+        }
+
+        @Override
+        public Object getValue(ELContext context, Object base, Object property) {
+            calls++;
+            return super.getValue(context, base, property);
+        }
+    }
+
+    public static class Bean {
+        public String getName() {
+            return "bean";
+        }
+
+        public String hello(String who) {
+            return "hi " + who;
+        }
+    }
+
+    private ELContext context;
+    private CountingELResolver map;
+    private CountingELResolver bean;
+    private DispatchingELResolver resolver;
+
+    @Before
+    public void setup() {
+        context = new SimpleELContext();
+        map = new CountingELResolver(new MapELResolver());
+        bean = new CountingELResolver(new BeanELResolver());
+        resolver = new DispatchingELResolver(map, bean);
+    }
+
+    @Test
+    public void testLearnedRoute() {
+        assertEquals("bean", resolver.getValue(context, new Bean(), "name"));
+        assertEquals(1, map.calls);
+        assertEquals(1, bean.calls);
+        assertEquals("bean", resolver.getValue(context, new Bean(), "name"));
+        assertTrue(context.isPropertyResolved());
+        assertEquals(1, map.calls);
+        assertEquals(2, bean.calls);
+    }
+
+    @Test
+    public void testRouteMissFallsBack() {
+        final Map<String, String> base = new HashMap<String, String>();
+        base.put("name", "map");
+        assertEquals("map", resolver.getValue(context, base, "name"));
+        assertEquals(0, bean.calls);
+
+        // a base class whose resolver differs per property:
+        final DispatchingELResolver picky = new DispatchingELResolver(new ELResolverWrapper(bean) {
+            @Override
+            public Object getValue(ELContext context, Object base, Object property) {
+                return "name".equals(property) ? super.getValue(context, base, property) : null;
+            }
+        }, new MapELResolver() {
+            @Override
+            public Object getValue(ELContext context, Object base, Object property) {
+                context.setPropertyResolved(true);
+                return "fallback";
+            }
+        });
+        assertEquals("bean", picky.getValue(context, new Bean(), "name"));
+        assertEquals("fallback", picky.getValue(context, new Bean(), "other"));
+        assertEquals("bean", picky.getValue(context, new Bean(), "name"));
+    }
+
+    @Test
+    public void testUnresolved() {
+        assertNull(resolver.getValue(context, null, "foo"));
+        assertFalse(context.isPropertyResolved());
+        assertEquals(1, map.calls);
+        assertEquals(1, bean.calls);
+    }
+
+    @Test
+    public void testAdd() {
+        final DispatchingELResolver empty = new DispatchingELResolver();
+        assertNull(empty.getValue(context, Collections.singletonMap("foo", "bar"), "foo"));
+        assertFalse(context.isPropertyResolved());
+        empty.add(new MapELResolver());
+        assertEquals("bar", empty.getValue(context, Collections.singletonMap("foo", "bar"), "foo"));
+        assertEquals(1, empty.getResolvers().size());
+    }
+
+    @Test
+    public void testSimpleELContext() {
+        context.getVariableMapper().setVariable("bean",
+            UEL.getExpressionFactory(context).createValueExpression(new Bean(), Bean.class));
+        assertEquals("bean", UEL.getExpressionFactory(context)
+            .createValueExpression(context, "#{bean.name}", String.class).getValue(context));
+        assertTrue(context.getELResolver() instanceof DispatchingELResolver);
+    }
+
+    @Test
+    public void testInvoke() {
+        final DispatchingELResolver resolver =
+            new DispatchingELResolver(new MapELResolver(), new BeanELResolver());
+        assertEquals("hi x", resolver.invoke(context, new Bean(), "hello", null, new Object[] { "x" }));
+        assertTrue(context.isPropertyResolved());
+    }
+
+    @Test
+    public void testSimpleELContextMethodCall() {
+        context.getVariableMapper().setVariable("bean",
+            UEL.getExpressionFactory(context).createValueExpression(new Bean(), Bean.class));
+        assertEquals("hi x", UEL.getExpressionFactory(context)
+            .createValueExpression(context, "#{bean.hello('x')}", String.class).getValue(context));
+        context.getVariableMapper().setVariable("list",
+            UEL.getExpressionFactory(context).createValueExpression(Collections.singletonList("x"), List.class));
+        assertEquals(Integer.valueOf(1), UEL.getExpressionFactory(context)
+            .createValueExpression(context, "#{list.size()}", Integer.class).getValue(context));
+    }
+
+    @Test
+    public void testSharedRoutes() {
+        final DispatchingELResolver copy = new DispatchingELResolver(resolver);
+        assertEquals("bean", resolver.getValue(context, new Bean(), "name"));
+        assertEquals("bean", copy.getValue(context, new Bean(), "name"));
+        assertEquals(1, map.calls);
+        assertEquals(2, bean.calls);
+
+        copy.add(new MapELResolver());
+        assertEquals("bean", copy.getValue(context, new Bean(), "name"));
+        assertEquals(2, map.calls);
+        assertEquals(2, resolver.getResolvers().size());
+    }
+
+    @Test
+    public void testSimpleELContextsShareDelegates() {
+        final SimpleELContext other = new SimpleELContext();
+        assertNotSame(context.getELResolver(), other.getELResolver());
+        assertEquals(((DispatchingELResolver) context.getELResolver()).getResolvers(),
+            ((DispatchingELResolver) other.getELResolver()).getResolvers());
+    }
+
+    @Test
+    public void testSimpleELContextResolverIsModifiable() {
+        final SimpleELContext other = new SimpleELContext();
+        final DispatchingELResolver modified = (DispatchingELResolver) context.getELResolver();
+        modified.add(new MapELResolver());
+        assertEquals(7, modified.getResolvers().size());
+        assertEquals(6, ((DispatchingELResolver) other.getELResolver()).getResolvers().size());
+    }
+
+    @Test
+    public void testNoRoutePastClaimingDelegate() {
+        // a delegate that claims arrays but resolves only their "length", preceding the standard array resolver:
+        final ELResolver length = new ArrayELResolver() {
+            @Override
+            public Object getValue(ELContext context, Object base, Object property) {
+                if (base != null && base.getClass().isArray() && "length".equals(property)) {
+                    context.setPropertyResolved(true);
+                    return Array.getLength(base);
+                }
+                return null;
+            }
+        };
+        final DispatchingELResolver chain = new DispatchingELResolver(length, new ArrayELResolver());
+        final String[] base = { "a", "b" };
+        assertEquals("b", chain.getValue(context, base, 1));
+        assertEquals(Integer.valueOf(2), chain.getValue(context, base, "length"));
+        assertTrue(context.isPropertyResolved());
+    }
+}
@@ -17,8 +17,18 @@ package uelbox;
 
 import static org.junit.Assert.*;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import javax.el.ELContext;
 import javax.el.ELResolver;
+import javax.el.ExpressionFactory;
+import javax.el.ValueExpression;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -78,4 +88,224 @@ public class ELContextWrapperTest {
         assertNull(contextWrapper.getContext(getClass()));
         assertSame(this, wrapped.getContext(getClass()));
     }
+
+    @Test
+    public void testPool() {
+        final ELContextWrapperPool<ELContextWrapper> pool = new ELContextWrapperPool<ELContextWrapper>(1) {
+
+            @Override
+            protected ELContextWrapper create(ELContext wrapped) {
+                return new ELContextWrapper(wrapped) {
+
+                    @Override
+                    protected ELResolver wrap(ELResolver elResolver) {
+                        return elResolver;
+                    }
+                };
+            }
+        };
+        final ELContextWrapper first = pool.acquire(wrapped);
+        first.putContext(getClass(), this);
+        first.getVariableMapper().setVariable("foo",
+            UEL.getExpressionFactory(wrapped).createValueExpression("foo", String.class));
+        first.setPropertyResolved(true);
+        pool.release(first);
+        assertEquals(1, pool.getIdleCount());
+
+        final ELContext other = new SimpleELContext();
+        final ELContextWrapper second = pool.acquire(other);
+        assertSame(first, second);
+        assertNull(second.getContext(getClass()));
+        assertNull(second.getVariableMapper().resolveVariable("foo"));
+        assertFalse(second.isPropertyResolved());
+        assertSame(other.getELResolver(), second.getELResolver());
+        other.putContext(getClass(), this);
+        assertSame(this, second.getContext(getClass()));
+        assertNotSame(second, pool.acquire(other));
+
+        pool.release(second);
+        pool.release(pool.acquire(other));
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testPoolReleasesContext() {
+        final ELContextWrapperPool<ELContextWrapper> pool = new ELContextWrapperPool<ELContextWrapper>(1) {
+
+            @Override
+            protected ELContextWrapper create(ELContext wrapped) {
+                return wrap(wrapped);
+            }
+        };
+        ELContext request = new SimpleELContext();
+        final ELContextWrapper wrapper = pool.acquire(request);
+        wrapper.putContext(ELContext.class, request);
+        pool.release(wrapper);
+        assertEquals(1, pool.getIdleCount());
+
+        final WeakReference<ELContext> ref = new WeakReference<ELContext>(request);
+        request = null;
+        for (int i = 0; i < 100 && ref.get() != null; i++) {
+            System.gc();
+        }
+        assertNull(ref.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPoolDoubleRelease() {
+        final ELContextWrapperPool<ELContextWrapper> pool = new ELContextWrapperPool<ELContextWrapper>(2) {
+
+            @Override
+            protected ELContextWrapper create(ELContext wrapped) {
+                return wrap(wrapped);
+            }
+        };
+        final ELContextWrapper wrapper = pool.acquire(wrapped);
+        pool.release(wrapper);
+        pool.release(wrapper);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPoolForeignRelease() {
+        final ELContextWrapperPool<ELContextWrapper> pool = new ELContextWrapperPool<ELContextWrapper>(1) {
+
+            @Override
+            protected ELContextWrapper create(ELContext wrapped) {
+                return wrap(wrapped);
+            }
+        };
+        pool.release(contextWrapper);
+    }
+
+    @Test
+    public void testNestedContextObjects() {
+        final ELContextWrapper outer = wrap(wrap(contextWrapper));
+        wrapped.putContext(String.class, "base");
+        assertEquals("base", outer.getContext(String.class));
+
+        contextWrapper.putContext(String.class, "inner");
+        assertEquals("inner", outer.getContext(String.class));
+
+        outer.putContext(String.class, "outer");
+        assertEquals("outer", outer.getContext(String.class));
+        assertEquals("inner", contextWrapper.getContext(String.class));
+
+        contextWrapper.removeContext(String.class);
+        outer.removeContext(String.class);
+        assertNull(outer.getContext(String.class));
+
+        contextWrapper.recycle();
+        outer.recycle();
+        assertEquals("base", outer.getContext(String.class));
+    }
+
+    @Test
+    public void testNestedVariables() {
+        final ELContextWrapper outer = wrap(wrap(contextWrapper));
+        final ValueExpression foo = UEL.getExpressionFactory(wrapped).createValueExpression("foo", String.class);
+        final ValueExpression bar = UEL.getExpressionFactory(wrapped).createValueExpression("bar", String.class);
+        wrapped.getVariableMapper().setVariable("v", foo);
+        assertSame(foo, outer.getVariableMapper().resolveVariable("v"));
+
+        contextWrapper.getVariableMapper().setVariable("v", bar);
+        assertSame(bar, outer.getVariableMapper().resolveVariable("v"));
+
+        // a null variable hides that of the wrapped context:
+        outer.getVariableMapper().setVariable("v", null);
+        assertNull(outer.getVariableMapper().resolveVariable("v"));
+        assertSame(bar, contextWrapper.getVariableMapper().resolveVariable("v"));
+
+        contextWrapper.recycle();
+        assertNull(outer.getVariableMapper().resolveVariable("v"));
+        assertSame(foo, contextWrapper.getVariableMapper().resolveVariable("v"));
+    }
+
+    @Test
+    public void testInterleavedWritesAndReads() {
+        final ELContextWrapper middle = wrap(contextWrapper);
+        final ELContextWrapper outer = wrap(middle);
+        final ExpressionFactory expressionFactory = UEL.getExpressionFactory(wrapped);
+        contextWrapper.getVariableMapper().setVariable("inner",
+            expressionFactory.createValueExpression("inner", String.class));
+        contextWrapper.putContext(String.class, "inner");
+        for (int i = 0; i < 3; i++) {
+            final ValueExpression value = expressionFactory.createValueExpression(Integer.valueOf(i), Integer.class);
+            outer.getVariableMapper().setVariable("i", value);
+            assertSame(value, outer.getVariableMapper().resolveVariable("i"));
+            assertEquals("inner", outer.getVariableMapper().resolveVariable("inner").getValue(outer));
+            assertEquals("inner", outer.getContext(String.class));
+        }
+        final ValueExpression changed = expressionFactory.createValueExpression("changed", String.class);
+        contextWrapper.getVariableMapper().setVariable("inner", changed);
+        middle.putContext(String.class, "middle");
+        assertSame(changed, outer.getVariableMapper().resolveVariable("inner"));
+        assertEquals("middle", outer.getContext(String.class));
+        assertNull(middle.getVariableMapper().resolveVariable("i"));
+    }
+
+    @Test
+    public void testNestedOverridingWrapper() {
+        final ELContextWrapper overriding = new ELContextWrapper(wrapped) {
+
+            @Override
+            protected ELResolver wrap(ELResolver elResolver) {
+                return elResolver;
+            }
+
+            @Override
+            public Object getContext(@SuppressWarnings("rawtypes") Class key) {
+                return key == String.class ? "overridden" : super.getContext(key);
+            }
+        };
+        final ELContextWrapper outer = wrap(overriding);
+        assertEquals("overridden", outer.getContext(String.class));
+        overriding.putContext(Integer.class, 1);
+        assertEquals(1, outer.getContext(Integer.class));
+    }
+
+    private static ELContextWrapper wrap(ELContext context) {
+        return new ELContextWrapper(context) {
+
+            @Override
+            protected ELResolver wrap(ELResolver elResolver) {
+                return elResolver;
+            }
+        };
+    }
+
+    @Test
+    public void testConcurrentContextObjects() throws Exception {
+        final Class<?>[] keys =
+            { String.class, Integer.class, Long.class, Short.class, Byte.class, Double.class, Float.class,
+                Character.class, Boolean.class, Object.class, Number.class, CharSequence.class };
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (final Class<?> key : keys) {
+            tasks.add(new Callable<Void>() {
+
+                @Override
+                public Void call() throws Exception {
+                    for (int i = 0; i < 10000; i++) {
+                        final Object value = Integer.valueOf(i);
+                        assertNull(contextWrapper.getContext(key));
+                        contextWrapper.putContext(key, value);
+                        assertSame(value, contextWrapper.getContext(key));
+                        assertSame(value, contextWrapper.removeContext(key));
+                    }
+                    contextWrapper.putContext(key, key);
+                    return null;
+                }
+            });
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (Class<?> key : keys) {
+            assertSame(key, contextWrapper.getContext(key));
+        }
+    }
 }
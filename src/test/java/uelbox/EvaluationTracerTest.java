@@ -0,0 +1,194 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.el.ELContext;
+import javax.el.ExpressionFactory;
+import javax.el.PropertyNotFoundException;
+import javax.el.ValueExpression;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link EvaluationTracer}.
+ */
+public class EvaluationTracerTest {
+    private ELContext context;
+    private ExpressionFactory expressionFactory;
+    private final List<EvaluationTracer.Event> events = new ArrayList<EvaluationTracer.Event>();
+    private final EvaluationTracer.Listener listener = new EvaluationTracer.Listener() {
+
+        @Override
+        public void evaluated(EvaluationTracer.Event event) {
+            events.add(event);
+        }
+    };
+
+    @Before
+    public void setup() {
+        context = new SimpleELContext();
+        expressionFactory = UEL.getExpressionFactory(context);
+        context.getVariableMapper().setVariable("model",
+            expressionFactory.createValueExpression(Collections.singletonMap("foo", "bar"), Map.class));
+    }
+
+    private ValueExpression expression(String expression) {
+        return expressionFactory.createValueExpression(context, expression, Object.class);
+    }
+
+    @Test
+    public void testSteps() {
+        final EvaluationTracer tracer = new EvaluationTracer(listener, 0L, true);
+        assertEquals("bar", tracer.getValue(context, expression("#{model.foo}")));
+        assertEquals(1, events.size());
+        final EvaluationTracer.Event event = events.get(0);
+        assertEquals("#{model.foo}", event.getExpression());
+        assertSame(String.class, event.getResultType());
+        assertNull(event.getFailure());
+        assertEquals(1, event.getSteps().size());
+        final EvaluationTracer.Step step = event.getSteps().get(0);
+        assertEquals(0, step.getDepth());
+        assertEquals("foo", step.getProperty());
+        assertTrue(step.isResolved());
+        assertTrue(step.getBaseType().isInstance(Collections.singletonMap("foo", "bar")));
+    }
+
+    @Test
+    public void testWithoutSteps() {
+        new EvaluationTracer(listener, 0L, false).getValue(context, expression("#{model.foo}"));
+        assertTrue(events.get(0).getSteps().isEmpty());
+    }
+
+    @Test
+    public void testThreshold() {
+        new EvaluationTracer(listener, Long.MAX_VALUE, true).getValue(context, expression("#{model.foo}"));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void testDisabled() {
+        final EvaluationTracer tracer = new EvaluationTracer(listener, 0L, true);
+        tracer.setEnabled(false);
+        assertFalse(tracer.isEnabled());
+        assertEquals("bar", tracer.getValue(context, expression("#{model.foo}")));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void testFailure() {
+        try {
+            new EvaluationTracer(listener, 0L, true).getValue(context, expression("#{model.foo.nonexistent}"));
+            fail();
+        } catch (PropertyNotFoundException e) {
+            assertSame(e, events.get(0).getFailure());
+            assertNull(events.get(0).getResultType());
+        }
+    }
+
+    @Test
+    public void testError() {
+        final AssertionError error = new AssertionError();
+        final ValueExpression failing = new ValueExpression() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Object getValue(ELContext context) {
+                throw error;
+            }
+
+            @Override
+            public void setValue(ELContext context, Object value) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public boolean isReadOnly(ELContext context) {
+                return true;
+            }
+
+            @Override
+            public Class<?> getType(ELContext context) {
+                return Object.class;
+            }
+
+            @Override
+            public Class<?> getExpectedType() {
+                return Object.class;
+            }
+
+            @Override
+            public String getExpressionString() {
+                return "#{failing}";
+            }
+
+            @Override
+            public boolean equals(Object obj) {
+                return obj == this;
+            }
+
+            @Override
+            public int hashCode() {
+                return System.identityHashCode(this);
+            }
+
+            @Override
+            public boolean isLiteralText() {
+                return false;
+            }
+        };
+        try {
+            new EvaluationTracer(listener, 0L, true).getValue(context, failing);
+            fail();
+        } catch (AssertionError e) {
+            assertSame(error, e);
+            assertEquals(1, events.size());
+            assertSame(error, events.get(0).getFailure());
+        }
+    }
+
+    @Test
+    public void testListenerFailure() {
+        final IllegalStateException listenerFailure = new IllegalStateException();
+        final EvaluationTracer tracer = new EvaluationTracer(new EvaluationTracer.Listener() {
+
+            @Override
+            public void evaluated(EvaluationTracer.Event event) {
+                throw listenerFailure;
+            }
+        }, 0L, true);
+        assertEquals("bar", tracer.getValue(context, expression("#{model.foo}")));
+        try {
+            tracer.getValue(context, expression("#{model.foo.nonexistent}"));
+            fail();
+        } catch (PropertyNotFoundException e) {
+            // the evaluation's own exception, not the listener's
+        }
+        assertEquals(2L, tracer.getListenerFailureCount());
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import javax.el.ELContext;
+import javax.el.ExpressionFactory;
+import javax.el.ValueExpression;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link ExpressionCache}.
+ */
+public class ExpressionCacheTest {
+    private ELContext context;
+
+    @Before
+    public void setup() {
+        context = new SimpleELContext();
+        context.getVariableMapper().setVariable("foo",
+            UEL.getExpressionFactory(context).createValueExpression("bar", String.class));
+    }
+
+    @Test
+    public void testHit() {
+        final ExpressionCache cache = new ExpressionCache(10);
+        final ValueExpression expr = cache.getValueExpression(context, "#{foo}", Object.class);
+        assertSame(expr, cache.getValueExpression(context, "#{foo}", Object.class));
+        assertEquals("bar", expr.getValue(context));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testExpectedTypeIsPartOfKey() {
+        final ExpressionCache cache = new ExpressionCache(10);
+        assertNotSame(cache.getValueExpression(context, "#{foo}", Object.class),
+            cache.getValueExpression(context, "#{foo}", String.class));
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testSharedAcrossContexts() {
+        final ExpressionCache cache = new ExpressionCache(10);
+        final ELContext other = new SimpleELContext();
+        other.putContext(ExpressionFactory.class, UEL.getExpressionFactory(context));
+        assertSame(cache.getValueExpression(context, "#{1}", Object.class),
+            cache.getValueExpression(other, "#{1}", Object.class));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testVariableBindingIsPartOfKey() {
+        final ExpressionCache cache = new ExpressionCache(10);
+        final ValueExpression expr = cache.getValueExpression(context, "#{foo}", Object.class);
+        context.getVariableMapper().setVariable("foo",
+            UEL.getExpressionFactory(context).createValueExpression("baz", String.class));
+        final ValueExpression rebound = cache.getValueExpression(context, "#{foo}", Object.class);
+        assertNotSame(expr, rebound);
+        assertEquals("baz", rebound.getValue(context));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testUnboundVariableIsPartOfKey() {
+        final ExpressionCache cache = new ExpressionCache(10);
+        final ELContext other = new SimpleELContext();
+        other.putContext(ExpressionFactory.class, UEL.getExpressionFactory(context));
+        final ValueExpression expr = cache.getValueExpression(other, "#{foo}", Object.class);
+        assertNotSame(expr, cache.getValueExpression(context, "#{foo}", Object.class));
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void testEviction() {
+        final ExpressionCache cache = new ExpressionCache(2, 1);
+        final ValueExpression one = cache.getValueExpression(context, "#{1}", Object.class);
+        cache.getValueExpression(context, "#{2}", Object.class);
+        // touch #{1} so that #{2} is least recently used:
+        assertSame(one, cache.getValueExpression(context, "#{1}", Object.class));
+        cache.getValueExpression(context, "#{3}", Object.class);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertSame(one, cache.getValueExpression(context, "#{1}", Object.class));
+    }
+
+    @Test
+    public void testUELCreateValueExpression() {
+        final ExpressionCache cache = new ExpressionCache(10);
+        context.putContext(ExpressionCache.class, cache);
+        final ValueExpression expr = UEL.createValueExpression(context, "#{foo}", Object.class);
+        assertSame(expr, UEL.createValueExpression(context, "#{foo}", Object.class));
+        assertEquals(1, cache.getHitCount());
+    }
+}
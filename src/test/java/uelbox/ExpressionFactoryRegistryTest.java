@@ -0,0 +1,179 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import javax.el.ELContext;
+import javax.el.ExpressionFactory;
+import javax.el.MethodExpression;
+import javax.el.ValueExpression;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test {@link ExpressionFactoryRegistry}.
+ */
+public class ExpressionFactoryRegistryTest {
+    /**
+     * {@link ExpressionFactory} to be loaded by an {@link IsolatingClassLoader}.
+     */
+    public static class DelegatingExpressionFactory extends ExpressionFactory {
+        private final ExpressionFactory delegate = ExpressionFactory.newInstance();
+
+        @Override
+        public ValueExpression createValueExpression(ELContext context, String expression, Class<?> expectedType) {
+            return delegate.createValueExpression(context, expression, expectedType);
+        }
+
+        @Override
+        public ValueExpression createValueExpression(Object instance, Class<?> expectedType) {
+            return delegate.createValueExpression(instance, expectedType);
+        }
+
+        @Override
+        public MethodExpression createMethodExpression(ELContext context, String expression,
+            Class<?> expectedReturnType, Class<?>[] expectedParamTypes) {
+            return delegate.createMethodExpression(context, expression, expectedReturnType, expectedParamTypes);
+        }
+
+        @Override
+        public Object coerceToType(Object obj, Class<?> targetType) {
+            return delegate.coerceToType(obj, targetType);
+        }
+    }
+
+    /**
+     * {@link ClassLoader} that defines {@link DelegatingExpressionFactory} itself rather than delegating to its parent.
+     */
+    static class IsolatingClassLoader extends ClassLoader {
+        IsolatingClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!DelegatingExpressionFactory.class.getName().equals(name)) {
+                return super.loadClass(name, resolve);
+            }
+            Class<?> result = findLoadedClass(name);
+            if (result == null) {
+                final InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class");
+                try {
+                    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    final byte[] buffer = new byte[4096];
+                    for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                        bytes.write(buffer, 0, n);
+                    }
+                    in.close();
+                    result = defineClass(name, bytes.toByteArray(), 0, bytes.size());
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+            }
+            if (resolve) {
+                resolveClass(result);
+            }
+            return result;
+        }
+    }
+
+    private final ClassLoader classLoader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+
+    @After
+    public void teardown() {
+        ExpressionFactoryRegistry.setExpressionFactory(classLoader, null);
+    }
+
+    @Test
+    public void testShared() {
+        final ExpressionFactory expressionFactory = ExpressionFactoryRegistry.getExpressionFactory(classLoader);
+        assertSame(expressionFactory, ExpressionFactoryRegistry.getExpressionFactory(classLoader));
+        assertNotSame(expressionFactory, ExpressionFactoryRegistry.getExpressionFactory(new URLClassLoader(new URL[0],
+            classLoader)));
+    }
+
+    @Test
+    public void testSimpleELContext() {
+        final Thread thread = Thread.currentThread();
+        final ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        try {
+            assertSame(UEL.getExpressionFactory(new SimpleELContext()),
+                UEL.getExpressionFactory(new SimpleELContext()));
+            assertSame(ExpressionFactoryRegistry.getExpressionFactory(classLoader),
+                UEL.getExpressionFactory(new SimpleELContext()));
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    @Test
+    public void testExplicitRegistration() {
+        final ExpressionFactory expressionFactory = ExpressionFactory.newInstance();
+        ExpressionFactoryRegistry.setExpressionFactory(classLoader, expressionFactory);
+        assertSame(expressionFactory, ExpressionFactoryRegistry.getExpressionFactory(classLoader));
+        ExpressionFactoryRegistry.setExpressionFactory(classLoader, null);
+        assertNotSame(expressionFactory, ExpressionFactoryRegistry.getExpressionFactory(classLoader));
+    }
+
+    @Test
+    public void testImplementationProperty() {
+        final String implementation = ExpressionFactory.newInstance().getClass().getName();
+        System.setProperty(ExpressionFactoryRegistry.IMPLEMENTATION_PROPERTY, implementation);
+        try {
+            assertEquals(implementation, ExpressionFactoryRegistry.getExpressionFactory(classLoader).getClass()
+                .getName());
+        } finally {
+            System.clearProperty(ExpressionFactoryRegistry.IMPLEMENTATION_PROPERTY);
+        }
+    }
+
+    @Test
+    public void testPrewarm() {
+        assertSame(ExpressionFactoryRegistry.getExpressionFactory(), ExpressionFactoryRegistry.prewarm());
+    }
+
+    @Test
+    public void testRegisteredClassLoaderCanBeDiscarded() throws Exception {
+        ClassLoader isolated = new IsolatingClassLoader(getClass().getClassLoader());
+        ExpressionFactory expressionFactory =
+            (ExpressionFactory) isolated.loadClass(DelegatingExpressionFactory.class.getName()).getConstructor()
+                .newInstance();
+        assertSame(isolated, expressionFactory.getClass().getClassLoader());
+        ExpressionFactoryRegistry.setExpressionFactory(isolated, expressionFactory);
+        assertSame(expressionFactory, ExpressionFactoryRegistry.getExpressionFactory(isolated));
+
+        final WeakReference<ClassLoader> ref = new WeakReference<ClassLoader>(isolated);
+        isolated = null;
+        expressionFactory = null;
+        for (int i = 0; i < 100 && ref.get() != null; i++) {
+            System.gc();
+        }
+        assertNull(ref.get());
+    }
+}
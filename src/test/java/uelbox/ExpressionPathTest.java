@@ -0,0 +1,79 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Test {@link ExpressionPath}.
+ */
+public class ExpressionPathTest {
+
+    @Test
+    public void testParse() {
+        final ExpressionPath path = ExpressionPath.parse(" ${ foo[bar].baz } ");
+        assertEquals('$', path.getTrigger());
+        assertEquals(Arrays.asList("foo", "[bar]", "baz"), path.getSegments());
+        assertEquals("foo[bar].baz", path.getExpression());
+        assertEquals("${foo[bar].baz}", path.toString());
+    }
+
+    @Test
+    public void testParseUndelimited() {
+        final ExpressionPath path = ExpressionPath.parse("foo['a.b'][x.y].bar(1.5)");
+        assertEquals('#', path.getTrigger());
+        assertEquals(Arrays.asList("foo", "['a.b']", "[x.y]", "bar(1.5)"), path.getSegments());
+        assertEquals("#{foo['a.b'][x.y].bar(1.5)}", path.toString());
+    }
+
+    @Test
+    public void testChild() {
+        final ExpressionPath foo = ExpressionPath.parse("#{foo}");
+        assertEquals("#{foo[bar].baz}", foo.child("[bar].").child(".baz").toString());
+        assertEquals("#{foo[bar].baz}", foo.child(new StringBuilder("${ [bar].baz }")).toString());
+        assertEquals(ExpressionPath.parse("foo.bar"), foo.child("bar"));
+        assertSame(foo, foo.child(""));
+    }
+
+    @Test
+    public void testTrailingDot() {
+        final ExpressionPath foo = ExpressionPath.parse("#{foo}");
+        assertEquals(UEL.join("#{foo}", "[bar]."), foo.child("[bar].").toString());
+        assertEquals(UEL.join("#{foo}", "[bar].", "baz"), foo.child("[bar].").child("baz").toString());
+        assertEquals(UEL.join("#{foo}", "bar.", "[0]"), foo.child("bar.").child("[0]").toString());
+        assertEquals(UEL.join("foo."), ExpressionPath.parse("foo.").toString());
+        assertEquals(Arrays.asList("foo", "[bar]"), foo.child("[bar].").getSegments());
+    }
+
+    @Test
+    public void testCanonicalChildren() {
+        final ExpressionPath foo = ExpressionPath.parse("foo");
+        assertSame(foo.child("bar"), foo.child("bar"));
+        assertSame(foo.child("bar").child("baz"), foo.child("bar").child("baz"));
+    }
+
+    @Test
+    public void testWithTrigger() {
+        final ExpressionPath path = ExpressionPath.parse("foo.bar");
+        assertSame(path, path.withTrigger('#'));
+        assertEquals("${foo.bar}", path.withTrigger('$').toString());
+    }
+}
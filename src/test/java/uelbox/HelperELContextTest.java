@@ -20,6 +20,10 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.el.ELContext;
 import javax.el.ELResolver;
@@ -99,34 +103,135 @@ public class HelperELContextTest {
 
             @Override
             protected HelperELResolver<TestResult> wrap(ELResolver elResolver) {
-                return new HelperELResolver.WithWorkingStorage.AsResult<TestResult>(elResolver) {
+                return createHelperELResolver(elResolver);
+            }
+        };
+
+        doValueExpressionTestResultAssertions(helper.evaluate(createValueExpression("foo.bar['baz'].value")), foo,
+            "bar", "baz", "value");
+        doValueExpressionTestResultAssertions(helper.evaluate(createValueExpression("foo.bar['baz']")), foo, "bar",
+            "baz");
+        doValueExpressionTestResultAssertions(helper.evaluate(createValueExpression("foo.bar")), foo, "bar");
+    }
+
+    @Test
+    public void testEvaluateAll() {
+        HelperELContext<TestResult> helper = new HelperELContext<TestResult>(context) {
+
+            @Override
+            protected HelperELResolver<TestResult> wrap(ELResolver elResolver) {
+                return createHelperELResolver(elResolver);
+            }
+        };
+        final List<TestResult> results =
+            helper.evaluateAll(Arrays.asList(createValueExpression("foo.bar['baz'].value"),
+                createValueExpression("foo.bar['baz']"), createValueExpression("foo.bar")));
+        Assert.assertEquals(3, results.size());
+        doValueExpressionTestResultAssertions(results.get(0), foo, "bar", "baz", "value");
+        doValueExpressionTestResultAssertions(results.get(1), foo, "bar", "baz");
+        doValueExpressionTestResultAssertions(results.get(2), foo, "bar");
+    }
+
+    @Test
+    public void testEvaluateAllWithRecycledWorkingStorage() {
+        final List<List<Object>> storage = new ArrayList<List<Object>>();
+        HelperELContext<String> helper = new HelperELContext<String>(context) {
+
+            @Override
+            protected HelperELResolver<String> wrap(ELResolver elResolver) {
+                return new HelperELResolver.WithWorkingStorage<List<Object>, String>(elResolver) {
+
+                    @Override
+                    protected List<Object> createWorkingStorage(ELContext context, Object base) {
+                        final List<Object> result = new ArrayList<Object>();
+                        storage.add(result);
+                        return result;
+                    }
 
                     @Override
-                    protected TestResult createWorkingStorage(ELContext context, Object base) {
-                        return new TestResult(base);
+                    protected List<Object> recycleWorkingStorage(ELContext context, Object base,
+                        List<Object> previous) {
+                        previous.clear();
+                        return previous;
                     }
 
                     @Override
                     protected void afterGetValue(ELContext context, Object base, Object property, Object value,
-                        TestResult workingStorage) {
-                        workingStorage.properties.add(property);
+                        List<Object> workingStorage) {
+                        workingStorage.add(property);
                     }
 
                     @Override
-                    protected TestResult afterSetValue(ELContext context, Object base, Object property,
-                        TestResult workingStorage) {
-                        workingStorage.properties.add(property);
-                        return workingStorage;
+                    protected String afterSetValue(ELContext context, Object base, Object property,
+                        List<Object> workingStorage) {
+                        workingStorage.add(property);
+                        return workingStorage.toString();
                     }
                 };
             }
         };
+        final List<String> results = new ArrayList<String>();
+        helper.evaluateAll(Arrays.asList(createValueExpression("foo.bar['baz'].value"),
+            createValueExpression("foo.bar")), new HelperELResolver.ResultHandler<String>() {
 
-        doValueExpressionTestResultAssertions(helper.evaluate(createValueExpression("foo.bar['baz'].value")), foo,
-            "bar", "baz", "value");
-        doValueExpressionTestResultAssertions(helper.evaluate(createValueExpression("foo.bar['baz']")), foo, "bar",
-            "baz");
-        doValueExpressionTestResultAssertions(helper.evaluate(createValueExpression("foo.bar")), foo, "bar");
+            @Override
+            public void handle(ValueExpression valueExpression, String result) {
+                results.add(result);
+            }
+        });
+        Assert.assertEquals(Arrays.asList("[bar, baz, value]", "[bar]"), results);
+        Assert.assertEquals(1, storage.size());
+    }
+
+    @Test
+    public void testConcurrentEvaluation() throws Exception {
+        final HelperELResolver<TestResult> resolver = createHelperELResolver(context.getELResolver());
+        final ValueExpression valueExpression = createValueExpression("foo.bar['baz'].value");
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < 8; i++) {
+            tasks.add(new Callable<Void>() {
+
+                @Override
+                public Void call() throws Exception {
+                    for (int j = 0; j < 1000; j++) {
+                        doValueExpressionTestResultAssertions(resolver.evaluate(context, valueExpression), foo, "bar",
+                            "baz", "value");
+                    }
+                    return null;
+                }
+            });
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private HelperELResolver<TestResult> createHelperELResolver(ELResolver elResolver) {
+        return new HelperELResolver.WithWorkingStorage.AsResult<TestResult>(elResolver) {
+
+            @Override
+            protected TestResult createWorkingStorage(ELContext context, Object base) {
+                return new TestResult(base);
+            }
+
+            @Override
+            protected void afterGetValue(ELContext context, Object base, Object property, Object value,
+                TestResult workingStorage) {
+                workingStorage.properties.add(property);
+            }
+
+            @Override
+            protected TestResult afterSetValue(ELContext context, Object base, Object property,
+                TestResult workingStorage) {
+                workingStorage.properties.add(property);
+                return workingStorage;
+            }
+        };
     }
 
     private ValueExpression createValueExpression(String expression) {
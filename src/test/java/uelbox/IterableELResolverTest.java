@@ -0,0 +1,166 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import javax.el.ELContext;
+import javax.el.PropertyNotFoundException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link IterableELResolver}.
+ */
+public class IterableELResolverTest {
+    /**
+     * Iterable that counts the elements it hands out.
+     */
+    static class CountingIterable implements Iterable<Integer> {
+        final List<Integer> elements;
+        int iterators;
+        int reads;
+
+        CountingIterable(Integer... elements) {
+            this.elements = Arrays.asList(elements);
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            iterators++;
+            final Iterator<Integer> wrapped = elements.iterator();
+            return new Iterator<Integer>() {
+
+                @Override
+                public boolean hasNext() {
+                    return wrapped.hasNext();
+                }
+
+                @Override
+                public Integer next() {
+                    reads++;
+                    return wrapped.next();
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+
+    private ELContext context;
+    private IterableELResolver resolver;
+
+    @Before
+    public void setup() {
+        context = new SimpleELContext();
+        resolver = new IterableELResolver();
+    }
+
+    @Test
+    public void testAscendingAccessIsIncremental() {
+        final CountingIterable iterable = new CountingIterable(0, 1, 2, 3, 4);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Integer.valueOf(i), resolver.getValue(context, iterable, i));
+            assertTrue(context.isPropertyResolved());
+        }
+        assertEquals(1, iterable.iterators);
+        assertEquals(5, iterable.reads);
+    }
+
+    @Test
+    public void testGetTypeThenGetValue() {
+        final CountingIterable iterable = new CountingIterable(0, 1, 2);
+        assertEquals(Object.class, resolver.getType(context, iterable, 2));
+        assertEquals(Integer.valueOf(2), resolver.getValue(context, iterable, 2));
+        assertEquals(1, iterable.iterators);
+        assertEquals(3, iterable.reads);
+    }
+
+    @Test
+    public void testDescendingAccessRestarts() {
+        final CountingIterable iterable = new CountingIterable(0, 1, 2);
+        assertEquals(Integer.valueOf(2), resolver.getValue(context, iterable, 2));
+        assertEquals(Integer.valueOf(0), resolver.getValue(context, iterable, 0));
+        assertEquals(2, iterable.iterators);
+    }
+
+    @Test
+    public void testModifiedCollection() {
+        final Set<String> set = new LinkedHashSet<String>(Arrays.asList("a", "b"));
+        assertEquals("a", resolver.getValue(context, set, 0));
+        set.remove("a");
+        set.add("c");
+        assertEquals("c", resolver.getValue(context, set, 1));
+        set.add("d");
+        assertEquals("d", resolver.getValue(context, set, 2));
+    }
+
+    @Test
+    public void testRepeatedIndexIsReread() {
+        final Set<String> set = new LinkedHashSet<String>(Arrays.asList("a", "b"));
+        assertEquals("a", resolver.getValue(context, set, 0));
+        set.remove("a");
+        set.add("c");
+        assertEquals("b", resolver.getValue(context, set, 0));
+
+        final List<String> list = new LinkedList<String>(Arrays.asList("a", "b"));
+        assertEquals("b", resolver.getValue(context, list, 1));
+        list.set(1, "z");
+        assertEquals("z", resolver.getValue(context, list, 1));
+    }
+
+    @Test
+    public void testRandomAccessList() {
+        final List<String> list = Arrays.asList("a", "b", "c");
+        assertEquals("c", resolver.getValue(context, list, 2));
+        assertEquals("a", resolver.getValue(context, list, "0"));
+        assertNull(resolver.getValue(context, list, 3));
+        assertNull(resolver.getValue(context, list, -1));
+    }
+
+    @Test
+    public void testOutOfBounds() {
+        final CountingIterable iterable = new CountingIterable(0, 1, 2);
+        assertNull(resolver.getValue(context, iterable, 3));
+        assertNull(resolver.getType(context, iterable, -1));
+        assertEquals(Integer.valueOf(1), resolver.getValue(context, iterable, 1));
+    }
+
+    @Test(expected = PropertyNotFoundException.class)
+    public void testGetTypeOutOfBounds() {
+        resolver.getType(context, new CountingIterable(0), 1);
+    }
+
+    @Test
+    public void testUnhandledBase() {
+        assertNull(resolver.getValue(context, new Object(), 0));
+        assertFalse(context.isPropertyResolved());
+    }
+}
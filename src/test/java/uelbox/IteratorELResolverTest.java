@@ -0,0 +1,166 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeNoException;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Vector;
+
+import javax.el.ELContext;
+import javax.el.ELException;
+import javax.el.PropertyNotFoundException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link IteratorELResolver}.
+ */
+public class IteratorELResolverTest {
+    /**
+     * Iterator over an unbounded sequence of integers, counting the elements it hands out.
+     */
+    static class Counter implements Iterator<Integer> {
+        int reads;
+
+        @Override
+        public boolean hasNext() {
+            return true;
+        }
+
+        @Override
+        public Integer next() {
+            return Integer.valueOf(reads++);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private ELContext context;
+    private IteratorELResolver resolver;
+
+    @Before
+    public void setup() {
+        context = new SimpleELContext();
+        resolver = new IteratorELResolver(4);
+    }
+
+    @Test
+    public void testLazyForwardAccess() {
+        final Counter counter = new Counter();
+        assertEquals(Integer.valueOf(2), resolver.getValue(context, counter, 2));
+        assertTrue(context.isPropertyResolved());
+        assertEquals(3, counter.reads);
+        assertEquals(Integer.valueOf(1000), resolver.getValue(context, counter, 1000));
+        assertEquals(1001, counter.reads);
+    }
+
+    @Test
+    public void testBufferedAccessIsRepeatable() {
+        final Counter counter = new Counter();
+        assertEquals(Integer.valueOf(5), resolver.getValue(context, counter, 5));
+        assertEquals(Integer.valueOf(2), resolver.getValue(context, counter, 2));
+        assertEquals(Integer.valueOf(5), resolver.getValue(context, counter, "5"));
+        assertEquals(6, counter.reads);
+    }
+
+    @Test(expected = PropertyNotFoundException.class)
+    public void testIndexBehindBuffer() {
+        final Counter counter = new Counter();
+        resolver.getValue(context, counter, 10);
+        resolver.getValue(context, counter, 6);
+    }
+
+    @Test
+    public void testEnumeration() {
+        final Vector<String> vector = new Vector<String>(Arrays.asList("a", "b", "c"));
+        assertEquals("b", resolver.getValue(context, vector.elements(), 1));
+        assertNull(resolver.getValue(context, vector.elements(), 3));
+        assertNull(resolver.getValue(context, vector.elements(), -1));
+    }
+
+    @Test(expected = PropertyNotFoundException.class)
+    public void testGetTypeOutOfBounds() {
+        resolver.getType(context, Arrays.asList("a").iterator(), 1);
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        final Object stream;
+        try {
+            final Method of = Class.forName("java.util.stream.Stream").getMethod("of", Object[].class);
+            stream = of.invoke(null, new Object[] { new Object[] { "a", "b", "c" } });
+        } catch (ClassNotFoundException e) {
+            assumeNoException(e);
+            return;
+        }
+        assertEquals(Integer.class, resolver.getCommonPropertyType(context, stream));
+        assertEquals("c", resolver.getValue(context, stream, 2));
+        assertEquals("a", resolver.getValue(context, stream, 0));
+    }
+
+    @Test
+    public void testUnhandledBase() {
+        assertNull(resolver.getValue(context, Arrays.asList("a"), 0));
+        assertFalse(context.isPropertyResolved());
+    }
+
+    @Test
+    public void testBufferDoesNotRetainBase() {
+        Counter counter = new Counter();
+        assertEquals(Integer.valueOf(2), resolver.getValue(context, counter, 2));
+        final WeakReference<Counter> ref = new WeakReference<Counter>(counter);
+        counter = null;
+        for (int i = 0; i < 100 && ref.get() != null; i++) {
+            System.gc();
+        }
+        assertNull(ref.get());
+    }
+
+    @Test
+    public void testDiscardedStream() throws Exception {
+        final Method of;
+        try {
+            of = Class.forName("java.util.stream.Stream").getMethod("of", Object[].class);
+        } catch (ClassNotFoundException e) {
+            assumeNoException(e);
+            return;
+        }
+        final Object first = of.invoke(null, new Object[] { new Object[] { "a", "b" } });
+        assertEquals("a", resolver.getValue(context, first, 0));
+        for (int i = 0; i < IteratorELResolver.MAXIMUM_STREAMS; i++) {
+            resolver.getValue(context, of.invoke(null, new Object[] { new Object[] { "x" } }), 0);
+        }
+        try {
+            resolver.getValue(context, first, 1);
+            fail();
+        } catch (ELException e) {
+            // stream has already been operated upon
+        }
+    }
+}
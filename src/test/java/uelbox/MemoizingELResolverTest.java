@@ -0,0 +1,154 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.el.ELContext;
+import javax.el.ExpressionFactory;
+import javax.el.ValueExpression;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link MemoizingELResolver}.
+ */
+public class MemoizingELResolverTest {
+    public static class Bean {
+        int reads;
+
+        public Bean getChild() {
+            reads++;
+            return this;
+        }
+
+        public int getValue() {
+            return 2;
+        }
+    }
+
+    public static class Counter {
+        int count;
+
+        public int getCount() {
+            return count;
+        }
+
+        public int increment() {
+            return ++count;
+        }
+    }
+
+    public static class CountingList extends AbstractList<String> {
+        int reads;
+
+        @Override
+        public String get(int index) {
+            reads++;
+            return "a";
+        }
+
+        @Override
+        public int size() {
+            return 1;
+        }
+    }
+
+    private ELContext context;
+    private ExpressionFactory expressionFactory;
+    private MemoizingELResolver resolver;
+    private Bean bean;
+
+    @Before
+    public void setup() {
+        context = new SimpleELContext();
+        expressionFactory = UEL.getExpressionFactory(context);
+        resolver = new MemoizingELResolver(context.getELResolver());
+        bean = new Bean();
+        context.getVariableMapper().setVariable("bean", expressionFactory.createValueExpression(bean, Bean.class));
+    }
+
+    private ValueExpression expression(String expression) {
+        return expressionFactory.createValueExpression(context, expression, Object.class);
+    }
+
+    @Test
+    public void testRepeatedReadsResolvedOnce() {
+        assertEquals(Long.valueOf(6),
+            resolver.evaluate(context, expression("#{bean.child.value + bean.child.value * bean.child.value}")));
+        assertEquals(1, bean.reads);
+    }
+
+    @Test
+    public void testScopedToEvaluation() {
+        final ValueExpression expression = expression("#{bean.child.value}");
+        resolver.evaluate(context, expression);
+        resolver.evaluate(context, expression);
+        assertEquals(2, bean.reads);
+    }
+
+    @Test
+    public void testPassThroughOutsideEvaluation() {
+        resolver.getValue(context, bean, "child");
+        resolver.getValue(context, bean, "child");
+        assertEquals(2, bean.reads);
+    }
+
+    @Test
+    public void testNumericMapKeysAreDistinct() {
+        final Map<Object, String> map = new HashMap<Object, String>();
+        map.put(Integer.valueOf(1), "int");
+        map.put(Long.valueOf(1), "long");
+        context.getVariableMapper().setVariable("map", expressionFactory.createValueExpression(map, Map.class));
+        context.getVariableMapper().setVariable("i",
+            expressionFactory.createValueExpression(Integer.valueOf(1), Integer.class));
+        context.getVariableMapper().setVariable("l",
+            expressionFactory.createValueExpression(Long.valueOf(1), Long.class));
+        assertEquals("int-long", resolver.evaluate(context, expression("#{map[i]}-#{map[l]}")));
+    }
+
+    @Test
+    public void testNumericListIndexesAreEquivalent() {
+        final CountingList list = new CountingList();
+        context.getVariableMapper().setVariable("list", expressionFactory.createValueExpression(list, List.class));
+        context.getVariableMapper().setVariable("i",
+            expressionFactory.createValueExpression(Integer.valueOf(0), Integer.class));
+        assertEquals("a-a", resolver.evaluate(context, expression("#{list[i]}-#{list[0]}")));
+        assertEquals(1, list.reads);
+    }
+
+    @Test
+    public void testInvocationDiscardsMemo() {
+        context.getVariableMapper().setVariable("counter",
+            expressionFactory.createValueExpression(new Counter(), Counter.class));
+        assertEquals("0-1-1",
+            resolver.evaluate(context, expression("#{counter.count}-#{counter.increment()}-#{counter.count}")));
+    }
+
+    @Test
+    public void testMaximumSize() {
+        final MemoizingELResolver bounded = new MemoizingELResolver(context.getELResolver(), 1);
+        // bean.value occupies the only slot; reads of bean.child are passed through:
+        bounded.evaluate(context, expression("#{bean.value + bean.child.value + bean.child.value}"));
+        assertEquals(2, bean.reads);
+    }
+}
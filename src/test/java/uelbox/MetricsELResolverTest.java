@@ -0,0 +1,114 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.el.ELContext;
+import javax.el.MapELResolver;
+import javax.el.PropertyNotWritableException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uelbox.MetricsELResolver.Operation;
+import uelbox.MetricsELResolver.OperationMetrics;
+
+/**
+ * Test {@link MetricsELResolver}.
+ */
+public class MetricsELResolverTest {
+    private ELContext context;
+    private MetricsELResolver resolver;
+
+    @Before
+    public void setup() {
+        context = new SimpleELContext();
+        resolver = new MetricsELResolver(new MapELResolver(false));
+    }
+
+    @Test
+    public void testCounts() {
+        final Map<String, String> map = new HashMap<String, String>();
+        resolver.setValue(context, map, "foo", "bar");
+        for (int i = 0; i < 3; i++) {
+            context.setPropertyResolved(false);
+            assertEquals("bar", resolver.getValue(context, map, "foo"));
+        }
+        context.setPropertyResolved(false);
+        resolver.getValue(context, "notamap", "foo");
+
+        final MetricsELResolver.Snapshot snapshot = resolver.snapshot();
+        assertEquals(MapELResolver.class.getName(), snapshot.getName());
+        assertTrue(snapshot.getBaseTypes().contains(HashMap.class));
+        assertFalse(snapshot.getBaseTypes().contains(null));
+
+        final OperationMetrics get = snapshot.get(HashMap.class, Operation.GET_VALUE);
+        assertEquals(3, get.getCalls());
+        assertEquals(3, get.getResolved());
+        assertEquals(0, get.getUnresolved());
+        assertEquals(3, get.getSampled());
+        long histogramTotal = 0;
+        for (long count : get.getHistogram()) {
+            histogramTotal += count;
+        }
+        assertEquals(3, histogramTotal);
+        assertTrue(get.getPercentileNanos(50) > 0);
+
+        assertEquals(1, snapshot.get(String.class, Operation.GET_VALUE).getUnresolved());
+        assertEquals(4, snapshot.getTotal(Operation.GET_VALUE).getCalls());
+        assertEquals(1, snapshot.get(HashMap.class, Operation.SET_VALUE).getResolved());
+        assertEquals(0, snapshot.get(Object.class, Operation.GET_TYPE).getCalls());
+    }
+
+    @Test
+    public void testFailure() {
+        final MetricsELResolver readOnly = new MetricsELResolver(new MapELResolver(true));
+        try {
+            readOnly.setValue(context, new HashMap<String, String>(), "foo", "bar");
+        } catch (PropertyNotWritableException e) {
+            // expected
+        }
+        final OperationMetrics set = readOnly.snapshot().getTotal(Operation.SET_VALUE);
+        assertEquals(1, set.getCalls());
+        assertEquals(1, set.getFailed());
+        assertEquals(0, set.getResolved());
+    }
+
+    @Test
+    public void testSampling() {
+        final MetricsELResolver sampling = new MetricsELResolver(new MapELResolver(false), "sampling", 4);
+        for (int i = 0; i < 8; i++) {
+            sampling.getValue(context, null, "foo");
+        }
+        final OperationMetrics get = sampling.snapshot().get(null, Operation.GET_VALUE);
+        assertEquals(8, get.getCalls());
+        assertEquals(2, get.getSampled());
+    }
+
+    @Test
+    public void testReset() {
+        resolver.getValue(context, new HashMap<String, String>(), "foo");
+        assertEquals(1, resolver.reset().getTotal(Operation.GET_VALUE).getCalls());
+        assertEquals(0, resolver.snapshot().getTotal(Operation.GET_VALUE).getCalls());
+        assertTrue(resolver.snapshot().getBaseTypes().isEmpty());
+    }
+}
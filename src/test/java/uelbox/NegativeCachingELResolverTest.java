@@ -0,0 +1,175 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.MapELResolver;
+import javax.el.PropertyNotFoundException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link NegativeCachingELResolver}.
+ */
+public class NegativeCachingELResolverTest {
+    /**
+     * Counts calls.
+     */
+    static class CountingELResolver extends ELResolverWrapper {
+        int calls;
+
+        CountingELResolver(ELResolver wrapped) {
+            super(wrapped);
+        }
+
+        @Override
+        public Object getValue(ELContext context, Object base, Object property) {
+            calls++;
+            return super.getValue(context, base, property);
+        }
+
+        @Override
+        public Class<?> getType(ELContext context, Object base, Object property) {
+            calls++;
+            return super.getType(context, base, property);
+        }
+    }
+
+    public static class Bean {
+        public String getName() {
+            return "bean";
+        }
+    }
+
+    private ELContext context;
+
+    @Before
+    public void setup() {
+        context = new SimpleELContext();
+    }
+
+    @Test
+    public void testUnresolved() {
+        final CountingELResolver counting = new CountingELResolver(new MapELResolver());
+        final NegativeCachingELResolver resolver = new NegativeCachingELResolver(counting);
+        for (int i = 0; i < 3; i++) {
+            context.setPropertyResolved(false);
+            assertNull(resolver.getValue(context, new Bean(), "name"));
+            assertFalse(context.isPropertyResolved());
+        }
+        assertEquals(1, counting.calls);
+
+        // other operations are remembered independently:
+        assertNull(resolver.getType(context, new Bean(), "name"));
+        assertEquals(2, counting.calls);
+
+        // resolved lookups are not affected:
+        final Map<String, String> map = new HashMap<String, String>();
+        map.put("name", "map");
+        assertEquals("map", resolver.getValue(context, map, "name"));
+        assertEquals("map", resolver.getValue(context, map, "name"));
+        assertEquals(4, counting.calls);
+
+        resolver.clear();
+        resolver.getValue(context, new Bean(), "name");
+        assertEquals(5, counting.calls);
+    }
+
+    @Test
+    public void testNotFound() {
+        final CountingELResolver counting = new CountingELResolver(new BeanPropertyELResolver());
+        final NegativeCachingELResolver resolver = new NegativeCachingELResolver(counting);
+        String message = null;
+        for (int i = 0; i < 3; i++) {
+            try {
+                resolver.getValue(context, new Bean(), "missing");
+                fail();
+            } catch (PropertyNotFoundException e) {
+                if (message == null) {
+                    message = e.getMessage();
+                } else {
+                    assertEquals(message, e.getMessage());
+                }
+            }
+        }
+        assertEquals(1, counting.calls);
+        assertEquals("bean", resolver.getValue(context, new Bean(), "name"));
+    }
+
+    @Test
+    public void testReplayedExceptionIsFresh() {
+        final NegativeCachingELResolver resolver = new NegativeCachingELResolver(new BeanPropertyELResolver());
+        final PropertyNotFoundException[] thrown = new PropertyNotFoundException[3];
+        for (int i = 0; i < thrown.length; i++) {
+            try {
+                resolver.getType(context, new Bean(), "missing");
+            } catch (PropertyNotFoundException e) {
+                thrown[i] = e;
+            }
+        }
+        assertNotSame(thrown[1], thrown[2]);
+        assertEquals(thrown[0].getMessage(), thrown[2].getMessage());
+    }
+
+    @Test
+    public void testBounded() {
+        final CountingELResolver counting = new CountingELResolver(new MapELResolver());
+        final NegativeCachingELResolver resolver = new NegativeCachingELResolver(counting, 1);
+        resolver.getValue(context, new Bean(), "a");
+        resolver.getValue(context, new Bean(), "b");
+        resolver.getValue(context, new Bean(), "a");
+        assertEquals(3, counting.calls);
+        resolver.getValue(context, new Bean(), "a");
+        assertEquals(3, counting.calls);
+    }
+
+    @Test
+    public void testEvictionSparesReplayedMisses() {
+        final CountingELResolver counting = new CountingELResolver(new MapELResolver());
+        final NegativeCachingELResolver resolver = new NegativeCachingELResolver(counting, 2);
+        resolver.getValue(context, new Bean(), "a");
+        resolver.getValue(context, new Bean(), "b");
+        resolver.getValue(context, new Bean(), "a");
+        resolver.getValue(context, new Bean(), "c");
+        assertEquals(3, counting.calls);
+        resolver.getValue(context, new Bean(), "a");
+        resolver.getValue(context, new Bean(), "c");
+        assertEquals(3, counting.calls);
+        resolver.getValue(context, new Bean(), "b");
+        assertEquals(4, counting.calls);
+    }
+
+    @Test
+    public void testUncacheableProperty() {
+        final CountingELResolver counting = new CountingELResolver(new MapELResolver());
+        final NegativeCachingELResolver resolver = new NegativeCachingELResolver(counting);
+        final Object property = new Bean();
+        resolver.getValue(context, new Bean(), property);
+        resolver.getValue(context, new Bean(), property);
+        assertEquals(2, counting.calls);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.el.ELContext;
+import javax.el.ExpressionFactory;
+import javax.el.PropertyNotFoundException;
+import javax.el.ValueExpression;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link ParallelEvaluator}.
+ */
+public class ParallelEvaluatorTest {
+    private ELContext context;
+    private ExpressionFactory expressionFactory;
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        context = new SimpleELContext();
+        expressionFactory = UEL.getExpressionFactory(context);
+        context.getVariableMapper().setVariable("foo", expressionFactory.createValueExpression("bar", String.class));
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testResultsInOrder() {
+        final List<ValueExpression> expressions = new ArrayList<ValueExpression>();
+        for (int i = 0; i < 100; i++) {
+            expressions.add(expressionFactory.createValueExpression(context, "#{foo}" + i, String.class));
+        }
+        final List<ParallelEvaluator.Result> results =
+            new ParallelEvaluator(context, executor, 4).evaluateAll(expressions);
+        assertEquals(100, results.size());
+        for (int i = 0; i < 100; i++) {
+            assertFalse(results.get(i).isFailed());
+            assertEquals("bar" + i, results.get(i).getValue());
+        }
+    }
+
+    @Test
+    public void testFailureIsPerExpression() {
+        final List<ValueExpression> expressions = new ArrayList<ValueExpression>();
+        expressions.add(expressionFactory.createValueExpression(context, "#{foo.nonexistent}", Object.class));
+        expressions.add(expressionFactory.createValueExpression(context, "#{foo}", Object.class));
+        final List<ParallelEvaluator.Result> results =
+            new ParallelEvaluator(context, executor, 2).evaluateAll(expressions);
+        assertTrue(results.get(0).isFailed());
+        assertTrue(results.get(0).getFailure() instanceof PropertyNotFoundException);
+        assertEquals("bar", results.get(1).getValue());
+    }
+
+    @Test(expected = PropertyNotFoundException.class)
+    public void testGetValueRethrowsFailure() {
+        new ParallelEvaluator(context, executor, 1).evaluateAll(
+            Collections.singletonList(expressionFactory.createValueExpression(context, "#{foo.nonexistent}",
+                Object.class))).get(0).getValue();
+    }
+
+    @Test
+    public void testForkIsolation() {
+        final ParallelEvaluator.Fork fork = new ParallelEvaluator.Fork(context);
+        assertEquals("bar", fork.getVariableMapper().resolveVariable("foo").getValue(fork));
+        fork.getVariableMapper().setVariable("baz", expressionFactory.createValueExpression("x", String.class));
+        fork.putContext(String.class, "x");
+        assertNull(context.getVariableMapper().resolveVariable("baz"));
+        assertNull(context.getContext(String.class));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.ExpressionFactory;
+import javax.el.PropertyNotFoundException;
+import javax.el.PropertyNotWritableException;
+import javax.el.ValueExpression;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link RecordELResolver}, {@link RecordBuffer} and {@link Record}.
+ */
+public class RecordELResolverTest {
+    private static final RecordSchema SCHEMA = RecordSchema.of(ByteOrder.LITTLE_ENDIAN)
+        .with("id", RecordSchema.FieldType.INT).with("price", RecordSchema.FieldType.DOUBLE)
+        .with("flag", RecordSchema.FieldType.BOOLEAN).withRecordSize(16);
+
+    private ELContext context;
+    private ExpressionFactory expressionFactory;
+    private RecordBuffer records;
+
+    @Before
+    public void setup() {
+        context = new ELContextWrapper(new SimpleELContext()) {
+
+            @Override
+            protected ELResolver wrap(ELResolver elResolver) {
+                return new DispatchingELResolver(new RecordELResolver(), elResolver);
+            }
+        };
+        expressionFactory = UEL.getExpressionFactory(context);
+
+        final ByteBuffer buffer = ByteBuffer.allocate(4 + 3 * 16).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0xCAFE);
+        for (int i = 0; i < 3; i++) {
+            buffer.putInt(i).putDouble(50.0 * i).put((byte) (i % 2)).put(new byte[3]);
+        }
+        buffer.position(4);
+        records = new RecordBuffer(SCHEMA, buffer);
+    }
+
+    @Test
+    public void testSchema() {
+        assertEquals(16, SCHEMA.getRecordSize());
+        assertEquals(RecordSchema.FieldType.DOUBLE, SCHEMA.getFieldType("price"));
+        assertEquals(3, records.size());
+    }
+
+    @Test
+    public void testCursor() {
+        final Record rec = records.cursor();
+        context.getVariableMapper().setVariable("rec", expressionFactory.createValueExpression(rec, Record.class));
+        final ValueExpression filter =
+            expressionFactory.createValueExpression(context, "#{rec.price > 40 and rec.flag}", Boolean.class);
+        int matches = 0;
+        do {
+            if (Boolean.TRUE.equals(filter.getValue(context))) {
+                matches++;
+                assertEquals(Integer.valueOf(1), rec.get("id"));
+            }
+        } while (rec.next());
+        assertEquals(1, matches);
+        assertEquals(2, rec.getIndex());
+    }
+
+    @Test
+    public void testIndex() {
+        context.getVariableMapper().setVariable("records",
+            expressionFactory.createValueExpression(records, RecordBuffer.class));
+        assertEquals(Double.valueOf(100),
+            expressionFactory.createValueExpression(context, "#{records[2].price}", Object.class).getValue(context));
+        assertNull(expressionFactory.createValueExpression(context, "#{records[3]}", Object.class).getValue(context));
+        assertEquals(Record.class,
+            expressionFactory.createValueExpression(context, "#{records[0]}", Object.class).getType(context));
+    }
+
+    @Test(expected = PropertyNotFoundException.class)
+    public void testUnknownField() {
+        new RecordELResolver().getValue(context, records.get(0), "nonexistent");
+    }
+
+    @Test(expected = PropertyNotWritableException.class)
+    public void testReadOnly() {
+        final RecordELResolver resolver = new RecordELResolver();
+        assertTrue(resolver.isReadOnly(context, records.get(0), "id"));
+        resolver.setValue(context, records.get(0), "id", 1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testMoveOutOfBounds() {
+        records.cursor().moveTo(3);
+    }
+
+    @Test
+    public void testUnhandledBase() {
+        assertNull(new RecordELResolver().getValue(context, new Object(), "id"));
+        assertFalse(context.isPropertyResolved());
+    }
+}
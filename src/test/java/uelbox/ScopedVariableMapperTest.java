@@ -0,0 +1,120 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import javax.el.ExpressionFactory;
+import javax.el.ValueExpression;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link ScopedVariableMapper}.
+ */
+public class ScopedVariableMapperTest {
+    private SimpleELContext context;
+    private ExpressionFactory expressionFactory;
+
+    @Before
+    public void setup() {
+        context = new SimpleELContext();
+        expressionFactory = UEL.getExpressionFactory(context);
+    }
+
+    @Test
+    public void testShadowing() {
+        final ScopedVariableMapper mapper = context.getScopedVariableMapper();
+        final ValueExpression outer = constant("outer");
+        final ValueExpression inner = constant("inner");
+        assertNull(mapper.setVariable("v", outer));
+
+        mapper.pushFrame();
+        assertSame(outer, mapper.resolveVariable("v"));
+        assertSame(outer, mapper.setVariable("v", inner));
+        assertSame(inner, mapper.resolveVariable("v"));
+        assertSame(inner, mapper.setVariable("v", null));
+        assertNull(mapper.resolveVariable("v"));
+        assertTrue(mapper.containsVariable("v"));
+        assertEquals(1, mapper.getDepth());
+
+        mapper.popFrame();
+        assertSame(outer, mapper.resolveVariable("v"));
+        assertEquals(0, mapper.getDepth());
+    }
+
+    @Test
+    public void testParent() {
+        final ValueExpression foo = constant("foo");
+        context.getVariableMapper().setVariable("foo", foo);
+        final ScopedVariableMapper mapper = new ScopedVariableMapper(context.getVariableMapper());
+        assertSame(foo, mapper.resolveVariable("foo"));
+        assertFalse(mapper.containsVariable("foo"));
+        mapper.pushFrame();
+        mapper.setVariable("foo", null);
+        assertNull(mapper.resolveVariable("foo"));
+        mapper.popFrame();
+        assertSame(foo, mapper.resolveVariable("foo"));
+    }
+
+    @Test
+    public void testGrowth() {
+        final ScopedVariableMapper mapper = new ScopedVariableMapper();
+        for (int i = 0; i < 100; i++) {
+            mapper.pushFrame();
+            mapper.setVariable("v" + i, constant(Integer.valueOf(i)));
+            mapper.setVariable("v", constant(Integer.valueOf(i)));
+        }
+        assertEquals(100, mapper.getDepth());
+        for (int i = 99; i >= 0; i--) {
+            assertEquals(Integer.valueOf(i), mapper.resolveVariable("v").getValue(context));
+            assertEquals(Integer.valueOf(i), mapper.resolveVariable("v" + i).getValue(context));
+            mapper.popFrame();
+            assertFalse(mapper.containsVariable("v" + i));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPopWithoutPush() {
+        new ScopedVariableMapper().popFrame();
+    }
+
+    @Test
+    public void testLoop() {
+        final ScopedVariableMapper mapper = context.getScopedVariableMapper();
+        mapper.pushFrame();
+        int total = 0;
+        for (Integer i : Arrays.asList(1, 2, 3)) {
+            mapper.setVariable("item", constant(i));
+            total += ((Integer) expressionFactory.createValueExpression(context, "#{item * 2}", Integer.class)
+                .getValue(context)).intValue();
+        }
+        mapper.popFrame();
+        assertEquals(12, total);
+        assertNull(mapper.resolveVariable("item"));
+    }
+
+    private ValueExpression constant(Object value) {
+        return expressionFactory.createValueExpression(value, Object.class);
+    }
+}
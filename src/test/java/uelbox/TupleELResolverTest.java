@@ -0,0 +1,113 @@
+/*
+ *  Copyright the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uelbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.el.ELContext;
+import javax.el.ExpressionFactory;
+import javax.el.PropertyNotFoundException;
+import javax.el.PropertyNotWritableException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link TupleELResolver} and {@link Tuple}.
+ */
+public class TupleELResolverTest {
+    private static final TupleSchema SCHEMA = TupleSchema.of("id", "name", "amount");
+
+    private ELContext context;
+    private ExpressionFactory expressionFactory;
+    private Tuple tuple;
+
+    @Before
+    public void setup() {
+        context = new SimpleELContext();
+        expressionFactory = UEL.getExpressionFactory(context);
+        tuple = new Tuple(SCHEMA, 1, "foo", 2.5);
+        context.getVariableMapper().setVariable("row", expressionFactory.createValueExpression(tuple, Tuple.class));
+    }
+
+    @Test
+    public void testSchema() {
+        assertEquals(Arrays.asList("id", "name", "amount"), SCHEMA.getNames());
+        assertEquals(2, SCHEMA.slotOf("amount"));
+        assertEquals(2, SCHEMA.slotOf(new String("amount")));
+        assertEquals(-1, SCHEMA.slotOf("nonexistent"));
+        assertEquals(-1, SCHEMA.slotOf(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateName() {
+        TupleSchema.of("id", "id");
+    }
+
+    @Test
+    public void testGetValue() {
+        assertEquals("foo", expressionFactory.createValueExpression(context, "#{row.name}", String.class)
+            .getValue(context));
+        assertEquals(Double.valueOf(5.0),
+            expressionFactory.createValueExpression(context, "#{row['amount'] * 2}", Double.class).getValue(context));
+    }
+
+    @Test
+    public void testSetValue() {
+        expressionFactory.createValueExpression(context, "#{row.name}", String.class).setValue(context, "bar");
+        assertEquals("bar", tuple.get("name"));
+        assertEquals("bar", tuple.get(1));
+    }
+
+    @Test(expected = PropertyNotFoundException.class)
+    public void testUnknownName() {
+        expressionFactory.createValueExpression(context, "#{row.nonexistent}", Object.class).getValue(context);
+    }
+
+    @Test(expected = PropertyNotWritableException.class)
+    public void testReadOnly() {
+        final TupleELResolver resolver = new TupleELResolver(true);
+        assertTrue(resolver.isReadOnly(context, tuple, "id"));
+        resolver.setValue(context, tuple, "id", 2);
+    }
+
+    @Test
+    public void testUnhandledBase() {
+        assertNull(new TupleELResolver().getValue(context, new Object(), "id"));
+    }
+
+    @Test
+    public void testCompiledExpression() {
+        final Map<String, Object> holder = new HashMap<String, Object>();
+        holder.put("row", tuple);
+        context.getVariableMapper().setVariable("holder", expressionFactory.createValueExpression(holder, Map.class));
+        final CompiledExpression compiled = CompiledExpression.compile(context,
+            expressionFactory.createValueExpression(context, "#{holder.row.name}", String.class));
+        assertTrue(compiled.isCompiled());
+        assertEquals("foo", compiled.getValue(context));
+        tuple.set("name", "bar");
+        assertEquals("bar", compiled.getValue(context));
+        // a tuple of another schema falls back to full evaluation:
+        holder.put("row", new Tuple(TupleSchema.of("name"), "baz"));
+        assertEquals("baz", compiled.getValue(context));
+    }
+}
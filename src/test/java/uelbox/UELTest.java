@@ -79,6 +79,8 @@ public class UELTest {
         assertEquals("", UEL.strip("${\n}"));
         assertEquals("", UEL.strip(""));
         assertEquals("", UEL.strip(null));
+        assertEquals("foo[bar].baz", UEL.strip(new StringBuilder(" #{ foo[bar].baz }")));
+        assertEquals("#{a\nb}", UEL.strip("#{a\nb}"));
     }
 
     @Test
@@ -90,6 +92,9 @@ public class UELTest {
         assertFalse(UEL.isDelimited("\t"));
         assertFalse(UEL.isDelimited(""));
         assertFalse(UEL.isDelimited(null));
+        assertFalse(UEL.isDelimited("#{a\nb}"));
+        assertTrue(UEL.isDelimited("#{\na }"));
+        assertTrue(UEL.isDelimited(new StringBuilder("${foo}")));
     }
 
     @Test
@@ -121,5 +126,7 @@ public class UELTest {
         assertEquals("${foo[bar].baz}", UEL.join("${foo}", "[bar].", "#{baz}"));
         assertEquals("${foo[bar].baz}", UEL.join(" ${ foo } ", " [bar] ", " #{ baz\t}\n"));
         assertEquals("@{foo[bar].baz}", UEL.join('@', " ${ foo } ", " [bar] ", " #{ baz\t}\n"));
+        assertEquals("#{foo.baz}", UEL.join("foo", "${}", " ", "baz"));
+        assertEquals("${foo.bar}", UEL.join(new StringBuilder("${foo}"), "bar"));
     }
 }